@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures looking up value objects by media type with a growing number of
+ * registered classes, both uncached and through the negotiation cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValueObjectRegistryBenchmark {
+    protected static final Class[] CLASSES = new Class[]{
+        A1.class, A2.class, A3.class, A4.class, B1.class, B2.class, B3.class, B4.class,
+        C1.class, C2.class, C3.class, C4.class, D1.class, D2.class, D3.class, D4.class,
+        E1.class, E2.class, E3.class, E4.class, F1.class, F2.class, F3.class, F4.class,
+        G1.class, G2.class, G3.class, G4.class, H1.class, H2.class, H3.class, H4.class
+    };
+
+    @Param({"1", "8", "32"})
+    public int registered;
+
+    private MediaType versioned;
+    private MediaType unversioned;
+    private MediaType unknown;
+
+    @Setup
+    public void setup() {
+        ValueObjectRegistry.clear();
+        ValueObjectRegistry.register(Arrays.copyOf(CLASSES, registered));
+        Class<?> last = CLASSES[registered - 1];
+        Version version = last.getAnnotation(Version.class);
+        versioned = MediaType.valueOf(version.contentType()[0]+"+json;v="+version.version());
+        unversioned = MediaType.valueOf(version.contentType()[0]+"+json");
+        unknown = MediaType.valueOf("application/vnd.crosstreelabs.unknown+json");
+    }
+    @TearDown
+    public void tearDown() {
+        ValueObjectRegistry.clear();
+    }
+
+    @Benchmark
+    public Class<?> findVersioned() {
+        return ValueObjectRegistry.findForMediaType(versioned);
+    }
+    @Benchmark
+    public Class<?> findHighest() {
+        return ValueObjectRegistry.findForMediaType(unversioned);
+    }
+    @Benchmark
+    public Class<?> findUnknown() {
+        return ValueObjectRegistry.findForMediaType(unknown);
+    }
+    @Benchmark
+    public Negotiation negotiate() {
+        return ValueObjectRegistry.negotiate(versioned);
+    }
+
+    @Version(version = 1, contentType = "application/vnd.bench.a") public static class A1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.a") public static class A2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.a") public static class A3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.a") public static class A4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.bench.b") public static class B1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.b") public static class B2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.b") public static class B3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.b") public static class B4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.bench.c") public static class C1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.c") public static class C2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.c") public static class C3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.c") public static class C4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.bench.d") public static class D1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.d") public static class D2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.d") public static class D3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.d") public static class D4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.bench.e") public static class E1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.e") public static class E2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.e") public static class E3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.e") public static class E4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.bench.f") public static class F1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.f") public static class F2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.f") public static class F3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.f") public static class F4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.bench.g") public static class G1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.g") public static class G2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.g") public static class G3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.g") public static class G4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.bench.h") public static class H1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.bench.h") public static class H2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.bench.h") public static class H3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.bench.h") public static class H4 implements ValueObject {}
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares binding a value object through per-class cached readers and
+ * writers, as the Jackson 2 mappers do, with binding through the shared
+ * ObjectMapper on every call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JacksonBindingsBenchmark {
+    @Param({"json", "xml"})
+    public String structure;
+
+    private Mapper mapper;
+    private ObjectMapper objectMapper;
+    private boolean xml;
+    private UserVO vo;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws IOException {
+        xml = "xml".equals(structure);
+        mapper = xml ? new Jackson2XmlMapper() : new Jackson2JsonMapper();
+        objectMapper = (xml ? new XmlMapper() : new ObjectMapper())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        vo = new UserVO();
+        vo.name = "Thomas Wilson";
+        vo.username = "thomas.wilson";
+        vo.email = "thomas.wilson@crosstreelabs.com";
+        body = mapper.asBytes(vo);
+    }
+
+    @Benchmark
+    public UserVO readCached() throws IOException {
+        return mapper.readValue(new ByteArrayInputStream(body), UserVO.class);
+    }
+    @Benchmark
+    public UserVO readShared() throws IOException {
+        return objectMapper.readValue(new ByteArrayInputStream(body), UserVO.class);
+    }
+    @Benchmark
+    public byte[] writeCached() throws IOException {
+        return mapper.asBytes(vo);
+    }
+    @Benchmark
+    public byte[] writeShared() throws IOException {
+        return xml
+                ? objectMapper.writer().withRootName("xml").writeValueAsBytes(vo)
+                : objectMapper.writeValueAsBytes(vo);
+    }
+
+    @Version(version = 1, contentType = "application/vnd.crosstreelabs.user")
+    public static class UserVO implements ValueObject {
+        public String name;
+        public String username;
+        public String email;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.GsonJsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson1JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2CborMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2SmileMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2XmlMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.MessagePackMapper;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payloads and helpers shared by the provider benchmarks.
+ */
+final class BenchmarkPayload {
+    static final String TYPE_STR = "application/vnd.crosstreelabs.bench";
+    static final String USER_TYPE_STR = "application/vnd.crosstreelabs.bench.user";
+
+    private BenchmarkPayload() {}
+
+    static Mapper mapper(final String name) {
+        switch (name) {
+            case "jackson1":
+                return new Jackson1JsonMapper();
+            case "jackson2":
+                return new Jackson2JsonMapper();
+            case "jackson2xml":
+                return new Jackson2XmlMapper();
+            case "jackson2cbor":
+                return new Jackson2CborMapper();
+            case "jackson2smile":
+                return new Jackson2SmileMapper();
+            case "msgpack":
+                return new MessagePackMapper();
+            case "gson":
+                return new GsonJsonMapper();
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+    static String structure(final Mapper mapper) {
+        return mapper.supportedStructures()[0];
+    }
+    static OrderModel model(final int items) {
+        OrderModel model = new OrderModel();
+        model.reference = "ORD-0001";
+        model.customer = "Thomas Wilson";
+        for (int i = 0; i < items; i++) {
+            ItemModel item = new ItemModel();
+            item.sku = "SKU-"+i;
+            item.description = "Item number "+i;
+            item.quantity = i % 7 + 1;
+            item.price = i * 1.25;
+            model.items.add(item);
+        }
+        return model;
+    }
+    static UserVO user() {
+        UserVO vo = new UserVO();
+        vo.name = "Thomas Wilson";
+        vo.username = "thomas.wilson";
+        vo.email = "thomas.wilson@crosstreelabs.com";
+        return vo;
+    }
+    static OrderVO vo(final int items) {
+        OrderVO vo = new OrderVO();
+        vo.consume(model(items));
+        return vo;
+    }
+
+    @Version(version = 1, contentType = USER_TYPE_STR)
+    public static class UserVO implements ValueObject {
+        public String name;
+        public String username;
+        public String email;
+    }
+    @Version(version = 1, contentType = TYPE_STR, models = OrderModel.class)
+    public static class OrderVO implements ValueObject {
+        public String reference;
+        public String customer;
+        public List<ItemVO> items = new ArrayList<>();
+
+        public void consume(final OrderModel model) {
+            reference = model.reference;
+            customer = model.customer;
+            for (ItemModel item : model.items) {
+                ItemVO vo = new ItemVO();
+                vo.sku = item.sku;
+                vo.description = item.description;
+                vo.quantity = item.quantity;
+                vo.price = item.price;
+                items.add(vo);
+            }
+        }
+    }
+    public static class ItemVO {
+        public String sku;
+        public String description;
+        public int quantity;
+        public double price;
+    }
+    public static class OrderModel {
+        public String reference;
+        public String customer;
+        public List<ItemModel> items = new ArrayList<>();
+    }
+    public static class ItemModel {
+        public String sku;
+        public String description;
+        public int quantity;
+        public double price;
+    }
+    /**
+     * Discards everything written to it, so that benchmarks measure the
+     * serialization rather than the sink.
+     */
+    static final class NullOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+}
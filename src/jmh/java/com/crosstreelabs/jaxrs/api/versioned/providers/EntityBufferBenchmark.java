@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.GsonJsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.NullOutputStream;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.OrderVO;
+import com.crosstreelabs.jaxrs.api.versioned.util.StreamUtils;
+import com.google.gson.Gson;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-request garbage of reading and writing entities through
+ * pooled buffers, against the unpooled code they replaced. Run with `-prof gc`
+ * and compare the `gc.alloc.rate.norm` of each pair.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityBufferBenchmark {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final Gson GSON = new Gson();
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private byte[] body;
+    private MultivaluedMap<String, String> form;
+    private OrderVO vo;
+    private MultivaluedMapFormUrlEncodedProvider formProvider;
+    private GsonJsonMapper gson;
+
+    @Setup
+    public void setup() {
+        vo = BenchmarkPayload.vo(items);
+        body = GSON.toJson(vo).getBytes(StandardCharsets.UTF_8);
+        form = new MultivaluedHashMap<>();
+        for (int i = 0; i < items; i++) {
+            form.add("item", "Item number "+i+" – Œ");
+        }
+        formProvider = new MultivaluedMapFormUrlEncodedProvider();
+        gson = new GsonJsonMapper();
+    }
+
+    @Benchmark
+    public String readString() throws IOException {
+        return StreamUtils.toString(new ByteArrayInputStream(body));
+    }
+    @Benchmark
+    public String readStringUnpooled() throws IOException {
+        InputStream is = new ByteArrayInputStream(body);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buf = new byte[128];
+        for (int length = 0; (length = is.read(buf)) != -1;) {
+            baos.write(buf, 0, length);
+        }
+        return baos.toString("UTF-8");
+    }
+
+    @Benchmark
+    public long writeForm() throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        formProvider.writeTo(form, MultivaluedMap.class, MultivaluedMap.class, EMPTY_ANNOTATIONS,
+                MediaType.APPLICATION_FORM_URLENCODED_TYPE, new MultivaluedHashMap<String, Object>(), os);
+        return os.count;
+    }
+    @Benchmark
+    public long writeFormUnpooled() throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(baos, "UTF-8");
+        boolean first = true;
+        for (Map.Entry<String, List<String>> entry : form.entrySet()) {
+            String encodedName = URLEncoder.encode(entry.getKey(), "UTF-8");
+            for (String value : entry.getValue()) {
+                if (first) {
+                    first = false;
+                } else {
+                    writer.write("&");
+                }
+                writer.write(encodedName);
+                writer.write("=");
+                writer.write(URLEncoder.encode(value, "UTF-8"));
+            }
+            writer.flush();
+        }
+        os.write(baos.toByteArray());
+        return os.count;
+    }
+
+    @Benchmark
+    public long writeGson() throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        gson.writeTo(vo, os);
+        return os.count;
+    }
+    @Benchmark
+    public long writeGsonUnpooled() throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        GSON.toJson(vo, writer);
+        writer.flush();
+        return os.count;
+    }
+}
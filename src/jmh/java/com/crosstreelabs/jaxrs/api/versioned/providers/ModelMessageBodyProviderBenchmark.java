@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.ItemVO;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.NullOutputStream;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.OrderModel;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.OrderVO;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing models through {@link ModelMessageBodyProvider}, both via a
+ * value object's consume method and via mapper conversion.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelMessageBodyProviderBenchmark {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final String CONVERTED_TYPE_STR = "application/vnd.crosstreelabs.bench-converted";
+
+    @Param({"jackson2", "gson"})
+    public String mapper;
+    @Param({"1", "100", "10000"})
+    public int items;
+
+    private ModelMessageBodyProvider provider;
+    private MediaType consumed;
+    private MediaType converted;
+    private OrderModel model;
+
+    @Setup
+    public void setup() {
+        ValueObjectRegistry.clear();
+        ValueObjectRegistry.register(OrderVO.class, ConvertedOrderVO.class);
+        Mapper m = BenchmarkPayload.mapper(mapper);
+        provider = new ModelMessageBodyProvider(m);
+        consumed = MediaType.valueOf(BenchmarkPayload.TYPE_STR+"+"+BenchmarkPayload.structure(m)+";v=1");
+        converted = MediaType.valueOf(CONVERTED_TYPE_STR+"+"+BenchmarkPayload.structure(m)+";v=1");
+        model = BenchmarkPayload.model(items);
+    }
+    @TearDown
+    public void tearDown() {
+        ValueObjectRegistry.clear();
+    }
+
+    @Benchmark
+    public long writeThroughConsume() throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        provider.writeTo(model, OrderModel.class, OrderModel.class, EMPTY_ANNOTATIONS, consumed, new MultivaluedHashMap<String, Object>(), os);
+        return os.count;
+    }
+    @Benchmark
+    public long writeThroughConversion() throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        provider.writeTo(model, OrderModel.class, OrderModel.class, EMPTY_ANNOTATIONS, converted, new MultivaluedHashMap<String, Object>(), os);
+        return os.count;
+    }
+
+    @Version(version = 1, contentType = CONVERTED_TYPE_STR, models = OrderModel.class)
+    public static class ConvertedOrderVO implements ValueObject {
+        public String reference;
+        public String customer;
+        public List<ItemVO> items = new ArrayList<>();
+    }
+}
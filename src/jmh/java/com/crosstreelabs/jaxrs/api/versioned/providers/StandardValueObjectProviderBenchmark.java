@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.NullOutputStream;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.OrderVO;
+import com.crosstreelabs.jaxrs.api.versioned.providers.BenchmarkPayload.UserVO;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and writing value objects through
+ * {@link StandardValueObjectProvider}, for each mapper and a range of payload
+ * sizes. The size of the written payload is reported alongside as the
+ * `writeTo:bytes` counter, so that the binary structures, including
+ * MessagePack, can be compared with JSON on both speed and size. A typical
+ * user is measured alongside the orders, through `readUser` and `writeUser`.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StandardValueObjectProviderBenchmark {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+
+    @Param({"jackson1", "jackson2", "jackson2xml", "jackson2cbor", "jackson2smile", "msgpack", "gson"})
+    public String mapper;
+    @Param({"1", "100", "10000"})
+    public int items;
+
+    private StandardValueObjectProvider provider;
+    private MediaType mediaType;
+    private OrderVO vo;
+    private byte[] body;
+    private MediaType userMediaType;
+    private UserVO user;
+    private byte[] userBody;
+
+    @Setup
+    public void setup() throws IOException {
+        ValueObjectRegistry.clear();
+        ValueObjectRegistry.register(OrderVO.class, UserVO.class);
+        Mapper m = BenchmarkPayload.mapper(mapper);
+        provider = new StandardValueObjectProvider(m);
+        mediaType = MediaType.valueOf(BenchmarkPayload.TYPE_STR+"+"+BenchmarkPayload.structure(m)+";v=1");
+        vo = BenchmarkPayload.vo(items);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        provider.writeTo(vo, OrderVO.class, OrderVO.class, EMPTY_ANNOTATIONS, mediaType, new MultivaluedHashMap<String, Object>(), os);
+        body = os.toByteArray();
+        userMediaType = MediaType.valueOf(BenchmarkPayload.USER_TYPE_STR+"+"+BenchmarkPayload.structure(m)+";v=1");
+        user = BenchmarkPayload.user();
+        os = new ByteArrayOutputStream();
+        provider.writeTo(user, UserVO.class, UserVO.class, EMPTY_ANNOTATIONS, userMediaType, new MultivaluedHashMap<String, Object>(), os);
+        userBody = os.toByteArray();
+    }
+    @TearDown
+    public void tearDown() {
+        ValueObjectRegistry.clear();
+    }
+
+    @Benchmark
+    public ValueObject readFrom() throws IOException {
+        return provider.readFrom((Class)OrderVO.class, OrderVO.class, EMPTY_ANNOTATIONS, mediaType, new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(body));
+    }
+    @Benchmark
+    public long writeTo(final PayloadSize size) throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        provider.writeTo(vo, OrderVO.class, OrderVO.class, EMPTY_ANNOTATIONS, mediaType, new MultivaluedHashMap<String, Object>(), os);
+        size.bytes = os.count;
+        return os.count;
+    }
+    @Benchmark
+    public ValueObject readUser() throws IOException {
+        return provider.readFrom((Class)UserVO.class, UserVO.class, EMPTY_ANNOTATIONS, userMediaType, new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(userBody));
+    }
+    @Benchmark
+    public long writeUser(final PayloadSize size) throws IOException {
+        NullOutputStream os = new NullOutputStream();
+        provider.writeTo(user, UserVO.class, UserVO.class, EMPTY_ANNOTATIONS, userMediaType, new MultivaluedHashMap<String, Object>(), os);
+        size.bytes = os.count;
+        return os.count;
+    }
+
+    /**
+     * Holds the size of the last payload written. Since every payload written
+     * in a trial is the same, this reports the size of one payload rather than
+     * a running total.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
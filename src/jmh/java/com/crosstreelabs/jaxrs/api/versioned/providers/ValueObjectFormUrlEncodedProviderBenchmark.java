@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading value objects from forms, binding them directly compared
+ * with reading a hierarchical map and converting it through the mapper.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValueObjectFormUrlEncodedProviderBenchmark {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+
+    @Param({"jackson2", "gson"})
+    public String mapper;
+    @Param({"1", "100"})
+    public int attributes;
+
+    private Mapper m;
+    private ValueObjectFormUrlEncodedProvider provider;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        m = BenchmarkPayload.mapper(mapper);
+        provider = new ValueObjectFormUrlEncodedProvider(m);
+        StringBuilder sb = new StringBuilder("reference=ORD-0001&customer=Thomas+Wilson&quantity=3&price=12.5")
+                .append("&address[street]=1+Main+St&address[city]=Z%C3%BCrich");
+        for (int i = 0; i < attributes; i++) {
+            sb.append("&attributes[key").append(i).append("]=value+").append(i);
+        }
+        body = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ValueObject bind() throws IOException {
+        return provider.readFrom((Class)FormOrderVO.class, FormOrderVO.class,
+                EMPTY_ANNOTATIONS, MediaType.APPLICATION_FORM_URLENCODED_TYPE,
+                new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(body));
+    }
+    @Benchmark
+    public ValueObject convert() throws IOException {
+        Map<String, Object> map = QueryStringUtils.toMap(new ByteArrayInputStream(body), true);
+        return m.convertValue(map, FormOrderVO.class);
+    }
+
+    public static class FormOrderVO implements ValueObject {
+        public String reference;
+        public String customer;
+        public int quantity;
+        public double price;
+        public FormAddressVO address;
+        public Map<String, Object> attributes;
+    }
+    public static class FormAddressVO {
+        public String street;
+        public String city;
+    }
+}
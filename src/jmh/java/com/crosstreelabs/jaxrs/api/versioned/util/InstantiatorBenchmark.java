@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares creating value objects through the cached {@link Instantiator}
+ * against Class.newInstance, for a small value object and for one with many
+ * initialized fields.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstantiatorBenchmark {
+    @Param({"small", "large"})
+    public String size;
+
+    private Class<? extends ValueObject> type;
+
+    @Setup
+    public void setup() {
+        type = "small".equals(size) ? UserV1.class : LargeVO.class;
+    }
+
+    @Benchmark
+    public Object reflective() throws Exception {
+        return type.newInstance();
+    }
+    @Benchmark
+    public Object instantiator() throws Exception {
+        return Instantiator.of(type).newInstance();
+    }
+
+    public static class LargeVO implements ValueObject {
+        public String a1 = "a", a2 = "b", a3 = "c", a4 = "d", a5 = "e", a6 = "f", a7 = "g", a8 = "h";
+        public long b1 = 1, b2 = 2, b3 = 3, b4 = 4, b5 = 5, b6 = 6, b7 = 7, b8 = 8;
+        public List<String> tags = new ArrayList<>();
+        public Map<String, Object> attributes = new HashMap<>();
+    }
+}
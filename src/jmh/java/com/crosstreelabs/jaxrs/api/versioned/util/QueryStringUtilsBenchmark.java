@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing and producing form-urlencoded bodies with deep keys, for a
+ * range of parameter counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryStringUtilsBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int params;
+
+    private byte[] body;
+    private Map<String, Object> map;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < params; i++) {
+            if (i > 0) {
+                sb.append('&');
+            }
+            sb.append("order[items][").append(i).append("][description]=")
+                    .append("Item+number+").append(i).append("+%E2%80%93+%C5%92");
+        }
+        body = sb.toString().getBytes(StandardCharsets.UTF_8);
+        map = QueryStringUtils.toMap(new ByteArrayInputStream(body), true);
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap() throws IOException {
+        return QueryStringUtils.toMap(new ByteArrayInputStream(body), true);
+    }
+    @Benchmark
+    public String toQueryString() {
+        return QueryStringUtils.toQueryString(map, false, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares media type/version matching through the cached
+ * {@link VersionMatcher} and {@link VersionUtils#isCompatible} against reading
+ * the annotation and re-parsing its content types on every call. Run with
+ * `-prof gc`; the matcher should report a normalized allocation rate of
+ * ~0 B/op.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VersionMatcherBenchmark {
+    @Param({
+        "application/vnd.crosstreelabs.user+json;v=1",
+        "application/vnd.crosstreelabs.user",
+        "application/vnd.crosstreelabs.book+json"
+    })
+    public String accept;
+
+    private MediaType mediaType;
+
+    @Setup
+    public void setup() {
+        mediaType = MediaType.valueOf(accept);
+    }
+
+    @Benchmark
+    public boolean matcher() {
+        return VersionMatcher.of(UserV1.class).matches(mediaType);
+    }
+    @Benchmark
+    public boolean isCompatible() {
+        return VersionUtils.isCompatible(mediaType, UserV1.class.getAnnotation(Version.class));
+    }
+    @Benchmark
+    public boolean annotation() {
+        Version version = UserV1.class.getAnnotation(Version.class);
+        MediaType target = mediaType;
+        int targetVersion = VersionUtils.parseVersion(mediaType.getParameters().get("v"));
+        int idx = mediaType.getSubtype().indexOf('+');
+        if (idx >= 0) {
+            target = new MediaType(mediaType.getType(), mediaType.getSubtype().substring(0, idx));
+        }
+        for (String allowedType : version.contentType()) {
+            if (MediaType.valueOf(allowedType).isCompatible(target)
+                    && (targetVersion == -1 || targetVersion == version.version())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -14,19 +14,18 @@
 package com.crosstreelabs.jaxrs.api.versioned;
 
 import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
-import com.crosstreelabs.jaxrs.api.versioned.util.AnnotationUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.MediaTypeUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.VersionUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.Instantiator;
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
+import com.crosstreelabs.jaxrs.api.versioned.util.ValidationSupport;
+import com.crosstreelabs.jaxrs.api.versioned.util.ValidationUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.VersionMatcher;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.Map;
-import javax.validation.ValidationException;
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.NotAcceptableException;
 import javax.ws.rs.NotSupportedException;
@@ -35,8 +34,6 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * The AbstractValueObjectReaderWriter enforces basic and required functionality
@@ -59,7 +56,6 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class AbstractValueObjectReaderWriter
         implements MessageBodyReader<ValueObject>, MessageBodyWriter<ValueObject> {
-    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractValueObjectReaderWriter.class);
     
     public abstract Map readMap(InputStream entityStream) throws IOException;
     
@@ -85,53 +81,117 @@ public abstract class AbstractValueObjectReaderWriter
             final Type genericType,
             final Annotation[] annotations,
             final MediaType mediaType) {
-        // Ensure we're getting a ValueObject
+        // Ensure we're getting a ValueObject before negotiating anything
         if (!ValueObject.class.isAssignableFrom(type)) {
             return false;
         }
-        
-        MediaType contentType = MediaTypeUtils.normalize(mediaType);
+        return isReadable(type, ValueObjectRegistry.negotiate(mediaType));
+    }
+
+    @Override
+    public ValueObject readFrom(final Class<ValueObject> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, String> httpHeaders,
+            final InputStream entityStream)
+            throws IOException, WebApplicationException {
+        return readFrom(ValueObjectRegistry.negotiate(mediaType), annotations,
+                entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        return isWriteable(type, mediaType);
+    }
+
+    @Override
+    public long getSize(final ValueObject t,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final ValueObject obj,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        writeTo(obj, type, ValueObjectRegistry.negotiate(mediaType),
+                annotations, httpHeaders, entityStream);
+    }
+    
+    //~ Negotiated reading and writing ~~~~~~~~~~~~~~~~~~~
+    
+    /**
+     * Determines whether or not the reader can handle the given type, once
+     * the media type has been negotiated. Providers that have already
+     * negotiated the media type, to dispatch on it, call this and the other
+     * negotiated overloads so that the negotiation isn't repeated.
+     * @param type The type to read
+     * @param negotiation The negotiated media type
+     * @return True if the type can be read
+     */
+    protected boolean isReadable(final Class<?> type,
+            final Negotiation negotiation) {
+        if (!ValueObject.class.isAssignableFrom(type)) {
+            return false;
+        }
+        Class<? extends ValueObject> cls = negotiation.getValueObject();
+        if (cls != null && type.isAssignableFrom(cls)) {
+            return true;
+        }
         
         // If the requested type is neither an interface nor abstract, and is
         // also versioned, then we check it's content types for compatibility
         // and return the appropriate response.
-        if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())
-                && type.isAnnotationPresent(Version.class)) {
-            Version version = type.getAnnotation(Version.class);
-            if (VersionUtils.isCompatible(contentType, version)) {
+        if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+            VersionMatcher matcher = VersionMatcher.of(type);
+            if (matcher != null && matcher.matches(negotiation.getMediaType())) {
                 return true;
             }
         }
         
         // If the request type is an interface, is abstract, is not versioned,
-        // or is otherwise incompatible according to above, we check the content
-        // type itself.
-        Class<? extends ValueObject> cls = ValueObjectRegistry.findForMediaType(contentType);
-        if (cls == null || !type.isAssignableFrom(cls)) {
-            throw new NotSupportedException();
-        }
-        return true;
+        // or is otherwise incompatible according to above, the content type
+        // itself does not resolve to a suitable value object. Another provider
+        // may still accept it, so decline quietly and leave the 415 to the
+        // runtime once no reader is left.
+        return false;
     }
-
-    @Override
-    public ValueObject readFrom(final Class<ValueObject> type,
-            final Type genericType,
+    
+    /**
+     * Reads the value object negotiated for the request body.
+     * @param negotiation The negotiated media type
+     * @param annotations The annotations on the parameter being read
+     * @param entityStream The request body
+     * @return The value object
+     * @throws IOException If the body can't be read
+     */
+    protected ValueObject readFrom(final Negotiation negotiation,
             final Annotation[] annotations,
-            final MediaType mediaType,
-            final MultivaluedMap<String, String> httpHeaders,
             final InputStream entityStream)
             throws IOException, WebApplicationException {
-        MediaType contentType = MediaTypeUtils.normalize(mediaType);
-        Class<? extends ValueObject> cls = ValueObjectRegistry.findForMediaType(contentType);
+        Class<? extends ValueObject> cls = negotiation.getValueObject();
         if (cls == null) {
             throw new NotSupportedException();
         }
         ValueObject vo = newInstance(cls);
         if (entityStream != null) {
+            InputStream is = RequestLimits.getDefault().limit(entityStream);
             if (vo instanceof Consumer) {
-                ((Consumer)vo).consume(readMap(entityStream));
+                ((Consumer)vo).consume(readMap(is));
             } else {
-                vo = readObject(entityStream, vo);
+                vo = readObject(is, vo);
             }
         }
         if (requiresValidation(annotations)) {
@@ -139,11 +199,15 @@ public abstract class AbstractValueObjectReaderWriter
         }
         return vo;
     }
-
-    @Override
-    public boolean isWriteable(final Class<?> type,
-            final Type genericType,
-            final Annotation[] annotations,
+    
+    /**
+     * Determines whether or not the writer can handle the given type.
+     * @param type The type to serialize
+     * @param mediaType The response media type
+     * @return True if the type is a versioned value object compatible with the
+     * media type
+     */
+    protected boolean isWriteable(final Class<?> type,
             final MediaType mediaType) {
         // Ensure we're serializing a ValueObject
         if (!ValueObject.class.isAssignableFrom(type)) {
@@ -151,34 +215,31 @@ public abstract class AbstractValueObjectReaderWriter
         }
         
         // Ensure it's versioned
-        if (!type.isAnnotationPresent(Version.class)) {
-            return false;
-        }
-        return VersionUtils.isCompatible(mediaType, type.getAnnotation(Version.class));
+        VersionMatcher matcher = VersionMatcher.of(type);
+        return matcher != null && matcher.matches(mediaType);
     }
-
-    @Override
-    public long getSize(final ValueObject t,
-            final Class<?> type,
-            final Type genericType,
-            final Annotation[] annotations,
-            final MediaType mediaType) {
-        return -1;
-    }
-
-    @Override
-    public void writeTo(final ValueObject obj,
+    
+    /**
+     * Writes a value object in the negotiated media type.
+     * @param obj The value object
+     * @param type The declared type of the value object
+     * @param negotiation The negotiated media type
+     * @param annotations The annotations on the resource method
+     * @param httpHeaders The response headers
+     * @param entityStream The response body
+     * @throws IOException If the value object can't be written
+     */
+    protected void writeTo(final ValueObject obj,
             final Class<?> type,
-            final Type genericType,
+            final Negotiation negotiation,
             final Annotation[] annotations,
-            final MediaType mediaType,
             final MultivaluedMap<String, Object> httpHeaders,
             final OutputStream entityStream)
             throws IOException, WebApplicationException {
         if (!type.isAnnotationPresent(Version.class) || !(obj instanceof ValueObject)) {
             throw new InternalServerErrorException();
         }
-        MediaType contentType = MediaTypeUtils.normalize(mediaType);
+        MediaType contentType = negotiation.getMediaType();
         ValueObject vo = (ValueObject)obj;
         Version version = type.getAnnotation(Version.class);
         if (version.contentType().length == 0) {
@@ -187,11 +248,7 @@ public abstract class AbstractValueObjectReaderWriter
         if (requiresValidation(annotations)) {
             validate(vo);
         }
-        if (!VersionUtils.isCompatible(contentType, version)) {
-            httpHeaders.putSingle("Content-Type", VersionUtils.defaultMediaType(version));
-        } else {
-            httpHeaders.putSingle("Content-Type", VersionUtils.normalize(contentType, version).toString());
-        }
+        httpHeaders.putSingle("Content-Type", negotiation.getContentType(type));
         write(vo, annotations, contentType, httpHeaders, entityStream);
     }
     
@@ -200,37 +257,20 @@ public abstract class AbstractValueObjectReaderWriter
     protected <T> T newInstance(final Class<T> type)
             throws IOException {
         try {
-            return type.newInstance();
+            return Instantiator.of(type).newInstance();
         } catch (IllegalAccessException | InstantiationException ex) {
             throw new IOException(ex);
         }
     }
     
     protected void validate(final ValueObject vo) {
-        try {
-            Class validationHelper = Class.forName("com.crosstreelabs.jaxrs.api.versioned.util.ValidationUtils");
-            Method method = validationHelper.getDeclaredMethod("validate", Object.class);
-            method.invoke(null, vo);
-        } catch (InvocationTargetException ex) {
-            if (ex.getCause() instanceof ValidationException) {
-                throw (ValidationException)ex.getCause();
-            }
-            LOGGER.debug("Unable to validate vo", ex);
-        } catch (ClassNotFoundException | IllegalAccessException
-                | IllegalArgumentException | NoSuchMethodException
-                | SecurityException ex) {
-            LOGGER.warn("Unable to validate vo", ex);
+        if (ValidationSupport.isAvailable()) {
+            ValidationUtils.validate(vo);
         }
     }
     
     protected boolean requiresValidation(final Annotation[] annotations) {
-        try {
-            Class valid = Class.forName("javax.validation.Valid");
-            return AnnotationUtils.find(valid, annotations) != null;
-        } catch (ClassNotFoundException ex) {
-            LOGGER.warn("Validation library not present");
-        }
-        return false;
+        return ValidationSupport.isRequested(annotations);
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,335 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * An immutable lookup table from a base media type (type and subtype, without
+ * any structure suffix) to the versioned value objects registered against it.
+ *
+ * The index is built once whenever the registry changes, so that resolving a
+ * value object for a request requires neither reflection nor media type
+ * parsing. Lookups of concrete media types hash the type and subtype in place
+ * and do not allocate; wildcard media types fall back to a scan of the
+ * precomputed entries.
+ */
+final class MediaTypeIndex {
+    private static final String WILDCARD = "*";
+    
+    /**
+     * The version and content types a value object is indexed under, as
+     * declared by its @Version annotation or recorded in the compile-time
+     * index.
+     */
+    static final class Descriptor {
+        final int version;
+        final String[] contentTypes;
+        
+        Descriptor(final int version, final String[] contentTypes) {
+            this.version = version;
+            this.contentTypes = contentTypes;
+        }
+        
+        /**
+         * @param cls A value object class
+         * @return The descriptor declared by the class, or null if it is not
+         * annotated with @Version
+         */
+        static Descriptor of(final Class<?> cls) {
+            Version version = cls.getAnnotation(Version.class);
+            return version == null
+                    ? null
+                    : new Descriptor(version.version(), version.contentType());
+        }
+    }
+
+    private final Entry[] table;
+    private final int mask;
+    private final Entry[] entries;
+    private final Entry[] wildcards;
+
+    private MediaTypeIndex(final List<Entry> entries) {
+        int capacity = 4;
+        while (capacity < entries.size() * 2) {
+            capacity <<= 1;
+        }
+        List<Entry> wild = new ArrayList<>();
+        this.table = new Entry[capacity];
+        this.mask = capacity - 1;
+        for (Entry entry : entries) {
+            if (entry.isWildcard()) {
+                wild.add(entry);
+            }
+            int i = entry.hash & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = entry;
+        }
+        this.entries = entries.toArray(new Entry[entries.size()]);
+        this.wildcards = wild.toArray(new Entry[wild.size()]);
+    }
+
+    /**
+     * Builds an index over the given value object classes. Classes without a
+     * descriptor are ignored. Where two classes claim the same content type
+     * and version, the first one encountered wins.
+     * @param descriptors The registered value object classes, each with the
+     * version and content types it is indexed under, or null if none
+     * @return The index
+     */
+    static MediaTypeIndex build(
+            final Map<Class<? extends ValueObject>, Descriptor> descriptors) {
+        Map<String, EntryBuilder> builders = new LinkedHashMap<>();
+        for (Map.Entry<Class<? extends ValueObject>, Descriptor> described : descriptors.entrySet()) {
+            Class<? extends ValueObject> cls = described.getKey();
+            Descriptor descriptor = described.getValue();
+            if (descriptor == null) {
+                continue;
+            }
+            for (String contentType : descriptor.contentTypes) {
+                MediaType mediaType = MediaType.valueOf(contentType);
+                String type = mediaType.getType().toLowerCase(Locale.ENGLISH);
+                String subtype = mediaType.getSubtype().toLowerCase(Locale.ENGLISH);
+                String key = type + '/' + subtype;
+                EntryBuilder builder = builders.get(key);
+                if (builder == null) {
+                    builder = new EntryBuilder(type, subtype);
+                    builders.put(key, builder);
+                }
+                builder.add(descriptor.version, cls);
+            }
+        }
+        List<Entry> entries = new ArrayList<>(builders.size());
+        for (EntryBuilder builder : builders.values()) {
+            entries.add(builder.build());
+        }
+        return new MediaTypeIndex(entries);
+    }
+
+    /**
+     * Finds the value object class for the given media type. Any structure
+     * suffix (`+json`, `+xml`, etc.) on the subtype is ignored.
+     * @param mediaType The requested media type
+     * @param version The requested version, or -1 for the highest available
+     * @return The matching class, or null if there is none
+     */
+    Class<? extends ValueObject> find(final MediaType mediaType,
+            final int version) {
+        String type = mediaType.getType();
+        String subtype = mediaType.getSubtype();
+        int end = subtype.indexOf('+');
+        if (end < 0) {
+            end = subtype.length();
+        }
+
+        if (WILDCARD.equals(type) || isWildcard(subtype, end)) {
+            if (version >= 0) {
+                return findVersion(entries, type, subtype, end, version);
+            }
+            return highestOf(findHighest(entries, type, subtype, end));
+        }
+
+        Entry entry = lookup(type, subtype, end);
+        if (wildcards.length == 0) {
+            return entry == null ? null : entry.find(version);
+        }
+        if (version >= 0) {
+            Class<? extends ValueObject> cls = entry == null
+                    ? null
+                    : entry.find(version);
+            return cls != null
+                    ? cls
+                    : findVersion(wildcards, type, subtype, end, version);
+        }
+        Entry highest = findHighest(wildcards, type, subtype, end);
+        if (entry != null && (highest == null
+                || entry.highestVersion >= highest.highestVersion)) {
+            highest = entry;
+        }
+        return highestOf(highest);
+    }
+
+    private Entry lookup(final String type, final String subtype,
+            final int end) {
+        int hash = hash(type, subtype, end);
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            Entry entry = table[i];
+            if (entry == null) {
+                return null;
+            }
+            if (entry.hash == hash && entry.equals(type, subtype, end)) {
+                return entry;
+            }
+        }
+    }
+
+    private static Class<? extends ValueObject> findVersion(
+            final Entry[] candidates, final String type, final String subtype,
+            final int end, final int version) {
+        for (Entry entry : candidates) {
+            if (entry.isCompatible(type, subtype, end)) {
+                Class<? extends ValueObject> cls = entry.find(version);
+                if (cls != null) {
+                    return cls;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Entry findHighest(final Entry[] candidates,
+            final String type, final String subtype, final int end) {
+        Entry highest = null;
+        for (Entry entry : candidates) {
+            if (entry.isCompatible(type, subtype, end) && (highest == null
+                    || entry.highestVersion > highest.highestVersion)) {
+                highest = entry;
+            }
+        }
+        return highest;
+    }
+
+    private static Class<? extends ValueObject> highestOf(final Entry entry) {
+        return entry == null ? null : entry.highest;
+    }
+
+    private static boolean isWildcard(final String subtype, final int end) {
+        return end == 1 && subtype.charAt(0) == '*';
+    }
+
+    private static int hash(final String type, final String subtype,
+            final int end) {
+        int hash = 0;
+        for (int i = 0; i < type.length(); i++) {
+            hash = 31 * hash + lower(type.charAt(i));
+        }
+        hash = 31 * hash + '/';
+        for (int i = 0; i < end; i++) {
+            hash = 31 * hash + lower(subtype.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static char lower(final char ch) {
+        return ch >= 'A' && ch <= 'Z' ? (char)(ch + ('a' - 'A')) : ch;
+    }
+
+    //~ Entries ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final class Entry {
+        final String type;
+        final String subtype;
+        final int hash;
+        final int[] versions;
+        final Class<? extends ValueObject>[] classes;
+        final Class<? extends ValueObject> highest;
+        final int highestVersion;
+
+        Entry(final String type, final String subtype, final int[] versions,
+                final Class<? extends ValueObject>[] classes) {
+            this.type = type;
+            this.subtype = subtype;
+            this.hash = hash(type, subtype, subtype.length());
+            this.versions = versions;
+            this.classes = classes;
+            this.highest = classes[classes.length - 1];
+            this.highestVersion = versions[versions.length - 1];
+        }
+
+        Class<? extends ValueObject> find(final int version) {
+            if (version < 0) {
+                return highest;
+            }
+            int low = 0;
+            int high = versions.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (versions[mid] < version) {
+                    low = mid + 1;
+                } else if (versions[mid] > version) {
+                    high = mid - 1;
+                } else {
+                    return classes[mid];
+                }
+            }
+            return null;
+        }
+
+        boolean isWildcard() {
+            return WILDCARD.equals(type) || WILDCARD.equals(subtype);
+        }
+
+        boolean equals(final String type, final String subtype, final int end) {
+            return this.subtype.length() == end
+                    && this.type.equalsIgnoreCase(type)
+                    && this.subtype.regionMatches(true, 0, subtype, 0, end);
+        }
+
+        /**
+         * Mirrors `MediaType.isCompatible` for a subtype with its structure
+         * suffix removed.
+         */
+        boolean isCompatible(final String type, final String subtype,
+                final int end) {
+            if (WILDCARD.equals(this.type) || WILDCARD.equals(type)) {
+                return true;
+            }
+            if (!this.type.equalsIgnoreCase(type)) {
+                return false;
+            }
+            return WILDCARD.equals(this.subtype)
+                    || MediaTypeIndex.isWildcard(subtype, end)
+                    || equals(type, subtype, end);
+        }
+    }
+
+    private static final class EntryBuilder {
+        private final String type;
+        private final String subtype;
+        private final Map<Integer, Class<? extends ValueObject>> versions
+                = new LinkedHashMap<>();
+
+        EntryBuilder(final String type, final String subtype) {
+            this.type = type;
+            this.subtype = subtype;
+        }
+
+        void add(final int version, final Class<? extends ValueObject> cls) {
+            if (!versions.containsKey(version)) {
+                versions.put(version, cls);
+            }
+        }
+
+        Entry build() {
+            List<Integer> sorted = new ArrayList<>(versions.keySet());
+            Collections.sort(sorted);
+            int[] v = new int[sorted.size()];
+            Class<? extends ValueObject>[] c = new Class[sorted.size()];
+            for (int i = 0; i < v.length; i++) {
+                v[i] = sorted.get(i);
+                c[i] = versions.get(sorted.get(i));
+            }
+            return new Entry(type, subtype, v, c);
+        }
+    }
+}
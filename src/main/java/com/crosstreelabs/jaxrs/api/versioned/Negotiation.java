@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.util.VersionMatcher;
+import com.crosstreelabs.jaxrs.api.versioned.util.VersionUtils;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * The result of negotiating a media type against the registered value objects.
+ * A negotiation is immutable, and is cached by the {@link ValueObjectRegistry}
+ * so that repeated requests for the same media type skip all parsing and
+ * reflection.
+ */
+public final class Negotiation {
+    private final MediaType mediaType;
+    private final Class<? extends ValueObject> valueObject;
+    private final Version version;
+    private final String contentType;
+    private final String structure;
+
+    Negotiation(final MediaType mediaType,
+            final Class<? extends ValueObject> valueObject) {
+        this.mediaType = mediaType;
+        this.valueObject = valueObject;
+        this.version = valueObject == null
+                ? null
+                : valueObject.getAnnotation(Version.class);
+        this.contentType = version == null
+                ? null
+                : VersionUtils.normalize(mediaType, version).toString();
+        String subtype = mediaType.getSubtype();
+        int idx = subtype.lastIndexOf('+');
+        this.structure = idx < 0 ? null : subtype.substring(idx + 1);
+    }
+
+    /**
+     * @return The normalized media type that was negotiated
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+    /**
+     * @return The matching value object, or null if none matched
+     */
+    public Class<? extends ValueObject> getValueObject() {
+        return valueObject;
+    }
+    /**
+     * @return The version of the matching value object, or null if none
+     * matched
+     */
+    public Version getVersion() {
+        return version;
+    }
+    /**
+     * @return The Content-Type to respond with when writing the matching value
+     * object, including the version parameter, or null if none matched
+     */
+    public String getContentType() {
+        return contentType;
+    }
+    /**
+     * Determines the Content-Type to respond with when writing a value object
+     * of the given type, which need not be the one that was negotiated. If the
+     * type is not compatible with the negotiated media type, its default
+     * content type is used.
+     * @param type A versioned value object type
+     * @return The Content-Type, including the version parameter
+     */
+    public String getContentType(final Class<?> type) {
+        if (type == valueObject) {
+            return contentType;
+        }
+        Version typeVersion = type.getAnnotation(Version.class);
+        if (!VersionMatcher.of(type).matches(mediaType)) {
+            return VersionUtils.defaultMediaType(typeVersion);
+        }
+        return VersionUtils.normalize(mediaType, typeVersion).toString();
+    }
+    /**
+     * @return The structure suffix of the media type, for example `json` for
+     * `application/vnd.crosstreelabs.user+json`, or null if there is none
+     */
+    public String getStructure() {
+        return structure;
+    }
+
+    /**
+     * Determines whether the negotiated structure suffix is one of the given
+     * structures.
+     * @param structures The supported structures
+     * @return True if the structure is supported
+     */
+    public boolean hasStructure(final String[] structures) {
+        if (structure == null) {
+            return false;
+        }
+        for (String str : structures) {
+            if (structure.equals(str)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
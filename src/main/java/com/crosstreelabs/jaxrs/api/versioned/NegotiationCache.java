@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A bounded, concurrent cache of negotiation results keyed by the incoming
+ * media type.
+ *
+ * Keys hash the media type in place, ignoring case as MediaType does, and
+ * compare its parts directly, so a lookup neither lower-cases nor copies the
+ * type, subtype and parameters as MediaType's own hashCode does.
+ *
+ * Each cached result remembers the registry generation it was resolved
+ * against, so results resolved before a registration are treated as misses
+ * rather than served stale. Once the cache is full, entries are evicted using
+ * an approximate second-chance policy: entries that have been hit since the
+ * last sweep survive one more pass. This keeps a flood of distinct (possibly
+ * hostile) header values from growing the cache without bound, while the
+ * handful of media types a service actually sees stay resident.
+ */
+public final class NegotiationCache {
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private final int capacity;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    NegotiationCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    Negotiation get(final MediaType mediaType, final Object generation) {
+        Entry entry = entries.get(new Key(mediaType));
+        if (entry == null || entry.generation != generation) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.incrementAndGet();
+        return entry.negotiation;
+    }
+
+    void put(final MediaType mediaType, final Object generation,
+            final Negotiation negotiation) {
+        if (entries.put(new Key(mediaType), new Entry(generation, negotiation)) == null
+                && size.incrementAndGet() > capacity) {
+            evict();
+        }
+    }
+
+    void clear() {
+        for (Key key : entries.keySet()) {
+            if (entries.remove(key) != null) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    private void evict() {
+        while (size.get() > capacity) {
+            Map.Entry<Key, Entry> victim = null;
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> candidate = it.next();
+                if (victim == null) {
+                    victim = candidate;
+                }
+                if (!candidate.getValue().referenced) {
+                    victim = candidate;
+                    break;
+                }
+                candidate.getValue().referenced = false;
+            }
+            if (victim == null) {
+                return;
+            }
+            if (entries.remove(victim.getKey(), victim.getValue())) {
+                size.decrementAndGet();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    //~ Statistics ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    public int getCapacity() {
+        return capacity;
+    }
+    public int size() {
+        return size.get();
+    }
+    public long getHits() {
+        return hits.get();
+    }
+    public long getMisses() {
+        return misses.get();
+    }
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static final class Entry {
+        final Object generation;
+        final Negotiation negotiation;
+        volatile boolean referenced;
+
+        Entry(final Object generation, final Negotiation negotiation) {
+            this.generation = generation;
+            this.negotiation = negotiation;
+        }
+    }
+
+    /**
+     * A media type with its case-insensitive hash computed once, without
+     * allocating.
+     */
+    private static final class Key {
+        final MediaType mediaType;
+        final int hash;
+
+        Key(final MediaType mediaType) {
+            this.mediaType = mediaType;
+            int h = 31 * hashIgnoreCase(mediaType.getType())
+                    + hashIgnoreCase(mediaType.getSubtype());
+            for (Map.Entry<String, String> param : mediaType.getParameters().entrySet()) {
+                h += hashIgnoreCase(param.getKey()) ^ param.getValue().hashCode();
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            if (hash != other.hash) {
+                return false;
+            }
+            MediaType that = other.mediaType;
+            return mediaType == that
+                    || (mediaType.getType().equalsIgnoreCase(that.getType())
+                    && mediaType.getSubtype().equalsIgnoreCase(that.getSubtype())
+                    && mediaType.getParameters().equals(that.getParameters()));
+        }
+
+        private static int hashIgnoreCase(final String str) {
+            int h = 0;
+            for (int i = 0; i < str.length(); i++) {
+                h = 31 * h + Character.toLowerCase(str.charAt(i));
+            }
+            return h;
+        }
+    }
+}
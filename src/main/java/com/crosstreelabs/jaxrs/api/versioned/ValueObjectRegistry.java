@@ -13,59 +13,187 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned;
 
-import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.MediaTypeIndex.Descriptor;
+import com.crosstreelabs.jaxrs.api.versioned.util.MediaTypeUtils;
 import com.crosstreelabs.jaxrs.api.versioned.util.VersionUtils;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.ws.rs.core.MediaType;
 
 /**
  * Keeps track of all known value objects. 
+ * 
+ * The registry is copy-on-write. Every registration builds a new immutable
+ * snapshot, holding both the known classes and a {@link MediaTypeIndex} over
+ * them, and publishes it with a single atomic swap. Readers on the request
+ * path never lock, and always see a complete snapshot; lookups through
+ * {@link #findForMediaType(MediaType)} are constant time rather than a scan of
+ * every registered class.
+ * 
+ * On top of the index, {@link #negotiate(MediaType)} caches the full
+ * negotiation result for each media type seen, so that the providers only pay
+ * for normalization and resolution once per distinct media type.
+ * 
+ * Value objects can be registered by hand, or all at once from the index that
+ * {@link com.crosstreelabs.jaxrs.api.versioned.processor.ValueObjectIndexProcessor}
+ * generates at compile time, through {@link #registerIndexed()}.
  */
 public class ValueObjectRegistry {
-    private static final Set<Class<? extends ValueObject>> CLASSES = new HashSet<>();
+    /**
+     * The class path resource listing the value objects found at compile time.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/jaxrs-versioning/value-objects";
+    private static final AtomicReference<Snapshot> SNAPSHOT
+            = new AtomicReference<>(Snapshot.EMPTY);
+    private static final NegotiationCache NEGOTIATIONS
+            = new NegotiationCache(NegotiationCache.DEFAULT_CAPACITY);
     
     public static Set<Class<? extends ValueObject>> getClasses() {
-        return Collections.unmodifiableSet(CLASSES);
+        return SNAPSHOT.get().classes;
     }
     public static Class<? extends ValueObject> findForMediaType(final MediaType type) {
-        int targetVersion = type.getParameters().containsKey("v")
-                ? Integer.valueOf(type.getParameters().get("v"))
-                : -1;
-        Version highest = null;
-        Class<? extends ValueObject> highestClass = null;
-        for (Class<? extends ValueObject> cls : CLASSES) {
-            if (!cls.isAnnotationPresent(Version.class)) {
-                continue;
-            }
-            Version version = cls.getAnnotation(Version.class);
-            if (!VersionUtils.isCompatible(type, version)) {
-                continue;
-            }
-            if (version.version() == targetVersion) {
-                return cls;
-            }
-            if (highest == null || version.version() > highest.version()) {
-                highest = version;
-                highestClass = cls;
-            }
+        int targetVersion = VersionUtils.parseVersion(type.getParameters().get("v"));
+        return SNAPSHOT.get().index.find(type, targetVersion);
+    }
+    /**
+     * Negotiates the given media type against the registered value objects.
+     * The result is cached, so repeated calls for an equal media type skip
+     * normalization and the index lookup; a hit costs one in-place hash of
+     * the media type and one comparison.
+     * @param type The request or response media type
+     * @return The negotiation result; never null, but its value object may be
+     */
+    public static Negotiation negotiate(final MediaType type) {
+        Snapshot snapshot = SNAPSHOT.get();
+        Negotiation negotiation = NEGOTIATIONS.get(type, snapshot);
+        if (negotiation == null) {
+            MediaType normalized = MediaTypeUtils.normalize(type);
+            int targetVersion = VersionUtils.parseVersion(normalized.getParameters().get("v"));
+            negotiation = new Negotiation(normalized,
+                    snapshot.index.find(normalized, targetVersion));
+            NEGOTIATIONS.put(type, snapshot, negotiation);
         }
-        return highestClass;
+        return negotiation;
+    }
+    public static NegotiationCache getNegotiationCache() {
+        return NEGOTIATIONS;
     }
     public static void register(final Class<? extends ValueObject> cls) {
-        CLASSES.add(cls);
+        register(Collections.<Class<? extends ValueObject>>singleton(cls));
     }
     public static void register(final Class<? extends ValueObject>...classes) {
         register(Arrays.asList(classes));
     }
     public static void register(final Collection<Class<? extends ValueObject>> classes) {
-        CLASSES.addAll(classes);
+        Map<Class<? extends ValueObject>, Descriptor> descriptors = new LinkedHashMap<>();
+        for (Class<? extends ValueObject> cls : classes) {
+            descriptors.put(cls, Descriptor.of(cls));
+        }
+        register(descriptors);
+    }
+    private static void register(
+            final Map<Class<? extends ValueObject>, Descriptor> descriptors) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = SNAPSHOT.get();
+            if (current.classes.containsAll(descriptors.keySet())) {
+                return;
+            }
+            Map<Class<? extends ValueObject>, Descriptor> merged = new LinkedHashMap<>(current.descriptors);
+            for (Map.Entry<Class<? extends ValueObject>, Descriptor> entry : descriptors.entrySet()) {
+                if (!merged.containsKey(entry.getKey())) {
+                    merged.put(entry.getKey(), entry.getValue());
+                }
+            }
+            next = new Snapshot(merged);
+        } while (!SNAPSHOT.compareAndSet(current, next));
+        NEGOTIATIONS.clear();
+    }
+    /**
+     * Registers every value object listed in the compile-time indexes visible
+     * to the context class loader.
+     * @throws IOException If an index cannot be read
+     */
+    public static void registerIndexed() throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        registerIndexed(classLoader == null
+                ? ValueObjectRegistry.class.getClassLoader()
+                : classLoader);
+    }
+    /**
+     * Registers every value object listed in the compile-time indexes visible
+     * to the given class loader. The classes are loaded, but not initialized,
+     * and are registered as a single snapshot, indexed under the versions and
+     * content types recorded at compile time rather than read from their
+     * annotations.
+     * @param classLoader The class loader to find indexes and classes with
+     * @throws IOException If an index cannot be read
+     */
+    public static void registerIndexed(final ClassLoader classLoader)
+            throws IOException {
+        Map<Class<? extends ValueObject>, Descriptor> descriptors = new LinkedHashMap<>();
+        Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+        while (indexes.hasMoreElements()) {
+            URL index = indexes.nextElement();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    index.openStream(), StandardCharsets.UTF_8))) {
+                for (String line; (line = reader.readLine()) != null;) {
+                    String trimmed = line.trim();
+                    if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                        continue;
+                    }
+                    String[] columns = trimmed.split("\t");
+                    String name = columns[0];
+                    try {
+                        Class<? extends ValueObject> cls = Class.forName(name, false, classLoader)
+                                .asSubclass(ValueObject.class);
+                        descriptors.put(cls, columns.length < 3
+                                ? Descriptor.of(cls)
+                                : new Descriptor(Integer.parseInt(columns[1]),
+                                        columns[2].split(",")));
+                    } catch (ClassNotFoundException | ClassCastException
+                            | NumberFormatException ex) {
+                        throw new IllegalStateException("Invalid value object "
+                                +name+" in "+index, ex);
+                    }
+                }
+            }
+        }
+        register(descriptors);
     }
     public static void clear() {
-        CLASSES.clear();
+        SNAPSHOT.set(Snapshot.EMPTY);
+        NEGOTIATIONS.clear();
+    }
+    
+    /**
+     * An immutable view of the registry at a point in time.
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(
+                Collections.<Class<? extends ValueObject>, Descriptor>emptyMap());
+        
+        final Map<Class<? extends ValueObject>, Descriptor> descriptors;
+        final Set<Class<? extends ValueObject>> classes;
+        final MediaTypeIndex index;
+        
+        Snapshot(final Map<Class<? extends ValueObject>, Descriptor> descriptors) {
+            this.descriptors = Collections.unmodifiableMap(descriptors);
+            this.classes = Collections.unmodifiableSet(descriptors.keySet());
+            this.index = MediaTypeIndex.build(descriptors);
+        }
     }
     
 }
\ No newline at end of file
@@ -51,4 +51,23 @@ public @interface Version {
      * @return Zero or more domain model classes
      */
     Class<?>[] models() default {};
+    /**
+     * Whether the serialized representations of instances may be cached and
+     * served with an ETag. Intended for value objects that are never modified
+     * once returned, such as catalog entries or configuration: a cached
+     * representation is found by the identity of the instance, so modifying an
+     * instance after it has been written leaves its stale representation in
+     * the cache.
+     * @return True if representations may be cached
+     */
+    boolean cacheable() default false;
+    /**
+     * Whether cached representations are served with an ETag, answering a
+     * matching conditional GET or HEAD with 304 Not Modified. Only has an
+     * effect on cacheable value objects. Turn it off for value objects written
+     * as the bodies of error responses, which must never take part in
+     * conditional requests, so that they still share their serialized bytes.
+     * @return True if cached representations are tagged
+     */
+    boolean tagged() default true;
 }
\ No newline at end of file
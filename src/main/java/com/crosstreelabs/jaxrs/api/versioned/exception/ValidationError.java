@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.exception;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * The body of a 400 Bad Request caused by an invalid value object, listing
+ * every constraint violation. Instances must not be modified once returned,
+ * since their representations are cached. They aren't tagged, since an error
+ * must never be answered as Not Modified.
+ */
+@Version(version = 1, contentType = {ValidationError.TYPE_STR}, cacheable = true, tagged = false)
+public class ValidationError implements ValueObject {
+    public static final String TYPE_STR = "application/vnd.crosstreelabs.error";
+    public static final MediaType JSON_TYPE = mediaType("json");
+    
+    public String message;
+    public List<Violation> violations;
+    
+    public ValidationError() {}
+    public ValidationError(final String message,
+            final List<Violation> violations) {
+        this.message = message;
+        this.violations = violations == null
+                ? Collections.<Violation>emptyList()
+                : violations;
+    }
+
+    /**
+     * @param structure A structure suffix, such as `json`
+     * @return The media type of the error in the given structure
+     */
+    public static MediaType mediaType(final String structure) {
+        return MediaType.valueOf(TYPE_STR+"+"+structure+";v=1");
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(message, violations);
+    }
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof ValidationError)) {
+            return false;
+        }
+        ValidationError other = (ValidationError)obj;
+        return Objects.equals(message, other.message)
+                && Objects.equals(violations, other.violations);
+    }
+    
+    public static class Violation implements Serializable, Comparable<Violation> {
+        public String path;
+        public String message;
+        
+        public Violation() {}
+        public Violation(final String path, final String message) {
+            this.path = path;
+            this.message = message;
+        }
+
+        @Override
+        public int compareTo(final Violation other) {
+            int result = compare(path, other.path);
+            return result != 0 ? result : compare(message, other.message);
+        }
+        private static int compare(final String left, final String right) {
+            if (left == null) {
+                return right == null ? 0 : -1;
+            }
+            return right == null ? 1 : left.compareTo(right);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, message);
+        }
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Violation)) {
+                return false;
+            }
+            Violation other = (Violation)obj;
+            return Objects.equals(path, other.path)
+                    && Objects.equals(message, other.message);
+        }
+    }
+}
@@ -13,26 +13,184 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.exception;
 
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Answers invalid value objects with 400 Bad Request and a
+ * {@link ValidationError} listing every violation.
+ *
+ * The error is written by whichever provider serves the structure the client
+ * accepts, falling back to JSON: a client accepting
+ * `application/vnd.crosstreelabs.user+smile;v=1` is answered with
+ * `application/vnd.crosstreelabs.error+smile;v=1`. Clients tend to send the
+ * same invalid entities over and over, so equal errors are answered with the
+ * same, cacheable, instance, for the most recently seen distinct errors, and
+ * their serialized bodies are reused from the writing provider's
+ * {@link com.crosstreelabs.jaxrs.api.versioned.providers.RepresentationCache}.
+ *
+ * Invalid requests are the client's doing, so they are logged at DEBUG, and
+ * at most once per interval, along with how many were suppressed since.
+ */
 @Provider
 public class ValidationExceptionMapper implements ExceptionMapper<ValidationException> {
     private static final Logger LOGGER = LoggerFactory.getLogger(ValidationExceptionMapper.class);
+    private static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    public static final long DEFAULT_LOG_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_MAX_CACHED_ERRORS = 256;
+    
+    private final long logIntervalNanos;
+    private final AtomicLong nextLog;
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    /** Guarded by itself. */
+    private final Map<ValidationError, ValidationError> errors;
+    private HttpHeaders headers;
+    private Providers providers;
+    
+    public ValidationExceptionMapper() {
+        this(DEFAULT_LOG_INTERVAL_MILLIS);
+    }
+    /**
+     * @param logIntervalMillis The minimum time between logged errors
+     */
+    public ValidationExceptionMapper(final long logIntervalMillis) {
+        this(logIntervalMillis, DEFAULT_MAX_CACHED_ERRORS);
+    }
+    /**
+     * @param logIntervalMillis The minimum time between logged errors
+     * @param maxCachedErrors The number of distinct errors to keep, least
+     * recently used first out
+     */
+    public ValidationExceptionMapper(final long logIntervalMillis,
+            final int maxCachedErrors) {
+        this.logIntervalNanos = TimeUnit.MILLISECONDS.toNanos(logIntervalMillis);
+        this.nextLog = new AtomicLong(System.nanoTime());
+        this.errors = new LinkedHashMap<ValidationError, ValidationError>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ValidationError, ValidationError> eldest) {
+                return size() > maxCachedErrors;
+            }
+        };
+    }
+    
+    @Context
+    public void setHttpHeaders(final HttpHeaders headers) {
+        this.headers = headers;
+    }
+    @Context
+    public void setProviders(final Providers providers) {
+        this.providers = providers;
+    }
     
     @Override
     public Response toResponse(final ValidationException exception) {
-        LOGGER.error(exception.getClass().getName()+": "+exception.getMessage());
-        LOGGER.debug("", exception);
+        rejected.incrementAndGet();
+        log(exception);
         return Response.status(Response.Status.BAD_REQUEST)
-                .entity(new HashMap<>(Collections.singletonMap("message", exception.getMessage())))
+                .type(mediaType())
+                .entity(canonical(toError(exception)))
                 .build();
     }
     
+    /**
+     * @return The number of invalid requests answered
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+    
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    protected ValidationError toError(final ValidationException exception) {
+        if (!(exception instanceof ConstraintViolationException)) {
+            return new ValidationError(exception.getMessage(), null);
+        }
+        Set<ConstraintViolation<?>> constraintViolations
+                = ((ConstraintViolationException)exception).getConstraintViolations();
+        if (constraintViolations == null || constraintViolations.isEmpty()) {
+            return new ValidationError(exception.getMessage(), null);
+        }
+        List<ValidationError.Violation> violations = new ArrayList<>(constraintViolations.size());
+        for (ConstraintViolation<?> violation : constraintViolations) {
+            violations.add(new ValidationError.Violation(
+                    violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        Collections.sort(violations);
+        return new ValidationError(exception.getMessage(), violations);
+    }
+    
+    /**
+     * Negotiates the media type of the error: the first structure the client
+     * accepts that a provider can write the error in, or JSON.
+     */
+    protected MediaType mediaType() {
+        if (headers == null || providers == null) {
+            return ValidationError.JSON_TYPE;
+        }
+        for (MediaType accepted : headers.getAcceptableMediaTypes()) {
+            String structure = ValueObjectRegistry.negotiate(accepted).getStructure();
+            if (structure == null) {
+                continue;
+            }
+            MediaType candidate = ValidationError.mediaType(structure);
+            if (providers.getMessageBodyWriter(ValidationError.class,
+                    ValidationError.class, EMPTY_ANNOTATIONS, candidate) != null) {
+                return candidate;
+            }
+        }
+        return ValidationError.JSON_TYPE;
+    }
+    
+    private ValidationError canonical(final ValidationError error) {
+        synchronized (errors) {
+            ValidationError existing = errors.get(error);
+            if (existing != null) {
+                return existing;
+            }
+            errors.put(error, error);
+            return error;
+        }
+    }
+    
+    private void log(final ValidationException exception) {
+        if (!LOGGER.isDebugEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long next = nextLog.get();
+        if (now - next < 0 || !nextLog.compareAndSet(next, now + logIntervalNanos)) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long count = suppressed.getAndSet(0);
+        if (count == 0) {
+            LOGGER.debug("{}: {}", exception.getClass().getName(), exception.getMessage());
+        } else {
+            LOGGER.debug("{}: {} ({} more suppressed)", exception.getClass().getName(),
+                    exception.getMessage(), count);
+        }
+        LOGGER.trace("", exception);
+    }
+    
 }
\ No newline at end of file
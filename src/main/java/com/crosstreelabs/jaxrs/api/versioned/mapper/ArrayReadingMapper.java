@@ -0,0 +1,33 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+public interface ArrayReadingMapper extends Mapper {
+    /**
+     * Reads the elements of an array, or of a line delimited structure, from
+     * the stream lazily. Each call to `next` parses one more element, so only
+     * the current element needs to be held in memory. Parse failures during
+     * iteration are raised as unchecked exceptions.
+     * @param <T> The element type
+     * @param is The stream to read from
+     * @param to The element type
+     * @return An iterator over the elements
+     * @throws IOException If the start of the stream cannot be read
+     */
+    <T> Iterator<T> readValues(InputStream is, Class<T> to) throws IOException;
+}
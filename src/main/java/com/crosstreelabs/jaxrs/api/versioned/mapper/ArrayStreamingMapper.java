@@ -0,0 +1,28 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ArrayStreamingMapper extends StreamingMapper {
+    /**
+     * Starts an array in the stream. Elements are then written, and the array
+     * ended, through the returned writer.
+     * @param os The stream to write to
+     * @return The writer for the elements of the array
+     * @throws IOException 
+     */
+    ArrayWriter openArray(OutputStream os) throws IOException;
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes a sequence of objects into a stream as a single array, one element at
+ * a time, so that only the element being written needs to be held in memory.
+ */
+public interface ArrayWriter extends Closeable, Flushable {
+    /**
+     * Serializes the object as the next element of the array.
+     * @param element The element to write
+     * @throws IOException 
+     */
+    void write(Object element) throws IOException;
+
+    /**
+     * Pushes everything written so far into the stream, and flushes it.
+     * @throws IOException 
+     */
+    @Override
+    void flush() throws IOException;
+
+    /**
+     * Ends the array and flushes the stream. Implementations must not close
+     * the underlying stream.
+     * @throws IOException 
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Abandons the array after a failure, releasing the writer's resources
+     * without ending the array, so that the stream is not left holding what
+     * looks like a complete array. Implementations must not close the
+     * underlying stream.
+     * @throws IOException 
+     */
+    void abort() throws IOException;
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A mapper that can serialize directly into an output stream, rather than
+ * materializing the whole representation as a byte array first. Providers
+ * write through {@link com.crosstreelabs.jaxrs.api.versioned.util.MapperUtils#writeTo}
+ * so that plain {@link Mapper} implementations continue to work.
+ */
+public interface StreamingMapper extends Mapper {
+    /**
+     * Serializes the object into the stream. Implementations must flush, but
+     * not close, the stream.
+     * @param from The object to serialize
+     * @param os The stream to write to
+     * @throws IOException 
+     */
+    void writeTo(Object from, OutputStream os) throws IOException;
+}
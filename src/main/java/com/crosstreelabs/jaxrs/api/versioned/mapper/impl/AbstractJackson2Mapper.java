@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayReadingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayStreamingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * The base of the Jackson 2 mappers, which differ only in the format their
+ * JsonFactory reads and writes.
+ */
+public abstract class AbstractJackson2Mapper
+        implements ArrayStreamingMapper, ArrayReadingMapper {
+    private final String[] supports;
+    private final ObjectMapper mapper;
+    private final JacksonBindings bindings;
+
+    /**
+     * @param supports The structures the format is negotiated for
+     * @param factory The factory for the format
+     */
+    protected AbstractJackson2Mapper(final String[] supports,
+            final JsonFactory factory) {
+        this.supports = supports;
+        this.mapper = configure(new ObjectMapper(factory));
+        this.bindings = new JacksonBindings(mapper);
+    }
+
+    /**
+     * Applies the settings that every Jackson 2 based mapper binds value
+     * objects with: fields of any visibility only, ignoring unknown properties,
+     * and leaving the target stream open.
+     * @param mapper The mapper to configure
+     * @return The mapper
+     */
+    static <M extends ObjectMapper> M configure(final M mapper) {
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return mapper;
+    }
+
+    JacksonBindings bindings() {
+        return bindings;
+    }
+
+    @Override
+    public String[] supportedStructures() {
+        return supports;
+    }
+
+    @Override
+    public <T> T convertValue(final Object from, final Class<T> to) {
+        return mapper.convertValue(from, to);
+    }
+
+    @Override
+    public <T> T readValue(final InputStream is, final Class<T> to) throws IOException {
+        return bindings.reader(to).readValue(is);
+    }
+
+    @Override
+    public byte[] asBytes(final Object from) throws IOException {
+        return bindings.writer(from).writeValueAsBytes(from);
+    }
+
+    @Override
+    public void writeTo(final Object from, final OutputStream os) throws IOException {
+        bindings.writer(from).writeValue(os, from);
+    }
+
+    @Override
+    public ArrayWriter openArray(final OutputStream os) throws IOException {
+        return JacksonArrayWriter.open(bindings, os);
+    }
+
+    @Override
+    public <T> Iterator<T> readValues(final InputStream is, final Class<T> to)
+            throws IOException {
+        return bindings.reader(to).readValues(is);
+    }
+    
+}
@@ -13,16 +13,47 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
 
-import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayReadingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayStreamingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
+import com.crosstreelabs.jaxrs.api.versioned.util.Utf8Writer;
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-public class GsonJsonMapper implements Mapper {
+/**
+ * A GSON mapper for the `json` structure.
+ *
+ * The TypeAdapter for each class is resolved once and cached, so binding skips
+ * GSON's own TypeToken lookup. Reads and writes stream UTF-8 directly between
+ * the entity stream and the adapter, writing through a {@link Utf8Writer} with
+ * a pooled buffer, and conversions go through a JsonElement tree rather than a
+ * serialized JSON string. Otherwise the mapper behaves as `Gson.fromJson` and
+ * `Gson.toJson` do, down to the exceptions thrown for malformed documents.
+ */
+public class GsonJsonMapper implements ArrayStreamingMapper, ArrayReadingMapper {
     public static final String[] SUPPORTS = new String[]{"json"};
     private static final Gson GSON = new Gson();
+    private static final ClassValue<TypeAdapter<?>> ADAPTERS = new ClassValue<TypeAdapter<?>>() {
+        @Override
+        protected TypeAdapter<?> computeValue(final Class<?> type) {
+            return GSON.getAdapter(type);
+        }
+    };
 
     @Override
     public String[] supportedStructures() {
@@ -31,17 +62,152 @@ public class GsonJsonMapper implements Mapper {
 
     @Override
     public <T> T convertValue(final Object from, final Class<T> to) {
-        return GSON.fromJson(GSON.toJson(from), to);
+        if (from == null) {
+            return null;
+        }
+        // Build the tree through GSON, rather than the adapter alone, so that
+        // its null handling applies and null fields leave target defaults be
+        return adapter(to).fromJsonTree(GSON.toJsonTree(from, from.getClass()));
     }
 
     @Override
-    public <T> T readValue(final InputStream is, final Class<T> to) {
-        return GSON.fromJson(new InputStreamReader(is), to);
+    public <T> T readValue(final InputStream is, final Class<T> to) throws IOException {
+        JsonReader reader = jsonReader(is);
+        try {
+            reader.peek();
+        } catch (EOFException ex) {
+            // As with GSON itself, an empty document reads as null
+            return null;
+        }
+        try {
+            T value = adapter(to).read(reader);
+            if (value != null && reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonIOException("JSON document was not fully consumed.");
+            }
+            return value;
+        } catch (IllegalStateException | MalformedJsonException ex) {
+            throw new JsonSyntaxException(ex);
+        }
     }
 
     @Override
     public byte[] asBytes(final Object from) throws IOException {
-        return GSON.toJson(from).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writeTo(from, os);
+        return os.toByteArray();
+    }
+
+    @Override
+    public void writeTo(final Object from, final OutputStream os) throws IOException {
+        Utf8Writer out = new Utf8Writer(os);
+        try {
+            write(jsonWriter(out), from);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public ArrayWriter openArray(final OutputStream os) throws IOException {
+        final Utf8Writer out = new Utf8Writer(os);
+        final JsonWriter writer = jsonWriter(out);
+        writer.beginArray();
+        return new ArrayWriter() {
+            @Override
+            public void write(final Object element) throws IOException {
+                GsonJsonMapper.write(writer, element);
+            }
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+            @Override
+            public void close() throws IOException {
+                try {
+                    writer.endArray();
+                } finally {
+                    out.close();
+                }
+            }
+            @Override
+            public void abort() throws IOException {
+                out.close();
+            }
+        };
+    }
+
+    @Override
+    public <T> Iterator<T> readValues(final InputStream is, final Class<T> to)
+            throws IOException {
+        final JsonReader reader = jsonReader(is);
+        final TypeAdapter<T> adapter = adapter(to);
+        reader.beginArray();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return reader.peek() != JsonToken.END_ARRAY;
+                } catch (IOException ex) {
+                    throw new JsonIOException(ex);
+                }
+            }
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return adapter.read(reader);
+                } catch (IOException ex) {
+                    throw new JsonSyntaxException(ex);
+                }
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+    
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    @SuppressWarnings("unchecked")
+    private static <T> TypeAdapter<T> adapter(final Class<T> type) {
+        return (TypeAdapter<T>)ADAPTERS.get(type);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static TypeAdapter<Object> objectAdapter(final Object value) {
+        return (TypeAdapter<Object>)ADAPTERS.get(value.getClass());
+    }
+    private static void write(final JsonWriter writer, final Object value)
+            throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else {
+            objectAdapter(value).write(writer, value);
+        }
+    }
+    
+    /**
+     * Creates a reader configured as GSON configures its own.
+     */
+    private static JsonReader jsonReader(final InputStream is) {
+        JsonReader reader = new JsonReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        reader.setLenient(true);
+        return reader;
+    }
+    
+    /**
+     * Creates a writer configured as GSON configures its own, so that output
+     * matches `Gson.toJson` exactly.
+     */
+    private static JsonWriter jsonWriter(final Utf8Writer out) {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        writer.setHtmlSafe(GSON.htmlSafe());
+        writer.setSerializeNulls(GSON.serializeNulls());
+        return writer;
     }
     
-}
\ No newline at end of file
+}
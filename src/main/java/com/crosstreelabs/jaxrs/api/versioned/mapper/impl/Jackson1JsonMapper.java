@@ -13,18 +13,23 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
 
-import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayStreamingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.annotate.JsonAutoDetect;
 import org.codehaus.jackson.annotate.JsonMethod;
 import org.codehaus.jackson.map.DeserializationConfig;
 import org.codehaus.jackson.map.ObjectMapper;
 
-public class Jackson1JsonMapper implements Mapper {
+public class Jackson1JsonMapper implements ArrayStreamingMapper {
     public static final String[] SUPPORTS = new String[]{"json"};
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
             .setVisibility(JsonMethod.ALL, JsonAutoDetect.Visibility.NONE)
             .setVisibility(JsonMethod.FIELD, JsonAutoDetect.Visibility.ANY);
 
@@ -47,5 +52,42 @@ public class Jackson1JsonMapper implements Mapper {
     public byte[] asBytes(Object from) throws IOException {
         return MAPPER.writeValueAsBytes(from);
     }
+
+    @Override
+    public void writeTo(final Object from, final OutputStream os) throws IOException {
+        MAPPER.writeValue(os, from);
+    }
+
+    @Override
+    public ArrayWriter openArray(final OutputStream os) throws IOException {
+        final JsonGenerator generator = MAPPER.getJsonFactory()
+                .createJsonGenerator(os, JsonEncoding.UTF8);
+        // Jackson 1 flushes the generator after every value; keep that from
+        // reaching the stream so that only flush() and close() do
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        generator.writeStartArray();
+        return new ArrayWriter() {
+            @Override
+            public void write(final Object element) throws IOException {
+                MAPPER.writeValue(generator, element);
+            }
+            @Override
+            public void flush() throws IOException {
+                generator.flush();
+                os.flush();
+            }
+            @Override
+            public void close() throws IOException {
+                generator.writeEndArray();
+                generator.close();
+                os.flush();
+            }
+            @Override
+            public void abort() throws IOException {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.close();
+            }
+        };
+    }
     
 }
\ No newline at end of file
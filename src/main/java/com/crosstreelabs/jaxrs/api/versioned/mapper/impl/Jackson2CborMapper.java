@@ -0,0 +1,28 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * A Jackson 2 mapper for the binary CBOR format, the `cbor` structure.
+ */
+public class Jackson2CborMapper extends AbstractJackson2Mapper {
+    public static final String[] SUPPORTS = new String[]{"cbor"};
+
+    public Jackson2CborMapper() {
+        super(SUPPORTS, new CBORFactory());
+    }
+    
+}
@@ -13,39 +13,13 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
 
-import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.IOException;
-import java.io.InputStream;
+import com.fasterxml.jackson.core.JsonFactory;
 
-public class Jackson2JsonMapper implements Mapper {
+public class Jackson2JsonMapper extends AbstractJackson2Mapper {
     public static final String[] SUPPORTS = new String[]{"json"};
-    private static final ObjectMapper MAPPER = new ObjectMapper()
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
-            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
 
-    @Override
-    public String[] supportedStructures() {
-        return SUPPORTS;
-    }
-
-    @Override
-    public <T> T convertValue(final Object from, final Class<T> to) {
-        return MAPPER.convertValue(from, to);
-    }
-
-    @Override
-    public <T> T readValue(final InputStream is, final Class<T> to) throws IOException {
-        return MAPPER.readValue(is, to);
-    }
-
-    @Override
-    public byte[] asBytes(final Object from) throws IOException {
-        return MAPPER.writeValueAsBytes(from);
+    public Jackson2JsonMapper() {
+        super(SUPPORTS, new JsonFactory());
     }
     
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
+import com.fasterxml.jackson.core.JsonFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A Jackson 2 mapper for newline delimited JSON (NDJSON, or JSON Lines), the
+ * `ndjson` structure. A single value object is written as, and read from, one
+ * line, while collections are written one element per line, so that neither
+ * the writer nor the reader of a large export has to buffer an enclosing
+ * array.
+ */
+public class Jackson2NdJsonMapper extends AbstractJackson2Mapper {
+    public static final String[] SUPPORTS = new String[]{"ndjson"};
+    private static final int NEWLINE = '\n';
+
+    public Jackson2NdJsonMapper() {
+        super(SUPPORTS, new JsonFactory());
+    }
+
+    @Override
+    public byte[] asBytes(final Object from) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writeTo(from, os);
+        return os.toByteArray();
+    }
+
+    @Override
+    public void writeTo(final Object from, final OutputStream os) throws IOException {
+        super.writeTo(from, os);
+        os.write(NEWLINE);
+        os.flush();
+    }
+
+    @Override
+    public ArrayWriter openArray(final OutputStream os) throws IOException {
+        return JacksonArrayWriter.openLines(bindings(), os);
+    }
+    
+}
@@ -13,22 +13,26 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
 
-import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayStreamingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.FilterOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
-public class Jackson2XmlMapper implements Mapper {
+public class Jackson2XmlMapper implements ArrayStreamingMapper {
     public static final String[] SUPPORTS = new String[]{"xml"};
-    private static final ObjectMapper MAPPER = new XmlMapper()
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
-            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    private static final ObjectMapper MAPPER = AbstractJackson2Mapper.configure(new XmlMapper());
+    private static final JacksonBindings BINDINGS
+            = new JacksonBindings(MAPPER, MAPPER.writer().withRootName("xml"));
+    private static final JacksonBindings ITEMS
+            = new JacksonBindings(MAPPER, MAPPER.writer().withRootName("item"));
+    private static final byte[] ARRAY_START = "<xml>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_END = "</xml>".getBytes(StandardCharsets.UTF_8);
 
     @Override
     public String[] supportedStructures() {
@@ -42,12 +46,58 @@ public class Jackson2XmlMapper implements Mapper {
 
     @Override
     public <T> T readValue(final InputStream is, final Class<T> to) throws IOException {
-        return MAPPER.readValue(is, to);
+        return BINDINGS.reader(to).readValue(is);
     }
 
     @Override
     public byte[] asBytes(final Object from) throws IOException {
-        return MAPPER.writer().withRootName("xml").writeValueAsBytes(from);
+        return BINDINGS.writer(from).writeValueAsBytes(from);
+    }
+
+    @Override
+    public void writeTo(final Object from, final OutputStream os) throws IOException {
+        BINDINGS.writer(from).writeValue(os, from);
+    }
+
+    /**
+     * Writes the same document Jackson writes for a list, an `xml` root with
+     * one `item` element per entry, by writing each entry as its own `item`
+     * document between hand-written root tags.
+     */
+    @Override
+    public ArrayWriter openArray(final OutputStream os) throws IOException {
+        os.write(ARRAY_START);
+        // Each entry is its own document, and Jackson flushes the stream when
+        // a document ends; keep those flushes away from the real stream
+        final OutputStream entries = new FilterOutputStream(os) {
+            @Override
+            public void write(final byte[] b, final int off, final int len)
+                    throws IOException {
+                out.write(b, off, len);
+            }
+            @Override
+            public void flush() {}
+        };
+        return new ArrayWriter() {
+            @Override
+            public void write(final Object element) throws IOException {
+                ITEMS.writer(element).writeValue(entries, element);
+            }
+            @Override
+            public void flush() throws IOException {
+                os.flush();
+            }
+            @Override
+            public void close() throws IOException {
+                os.write(ARRAY_END);
+                os.flush();
+            }
+            @Override
+            public void abort() {
+                // Entries are written straight through, so there's nothing to
+                // release
+            }
+        };
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes array elements through a single Jackson 2 generator, either as a
+ * regular array or as newline delimited root values. Elements are serialized
+ * without flushing, so the generator batches output into its own buffer and
+ * the stream is only flushed when asked to.
+ */
+final class JacksonArrayWriter implements ArrayWriter {
+    private final JacksonBindings bindings;
+    private final JsonGenerator generator;
+    private final boolean lines;
+
+    private JacksonArrayWriter(final JacksonBindings bindings,
+            final OutputStream os, final boolean lines) throws IOException {
+        this.bindings = bindings;
+        this.generator = bindings.mapper().getFactory().createGenerator(os);
+        this.lines = lines;
+    }
+
+    static ArrayWriter open(final JacksonBindings bindings,
+            final OutputStream os) throws IOException {
+        JacksonArrayWriter writer = new JacksonArrayWriter(bindings, os, false);
+        writer.generator.writeStartArray();
+        return writer;
+    }
+
+    /**
+     * Opens a writer that terminates every element with a newline instead of
+     * wrapping them in an array, as used by NDJSON.
+     */
+    static ArrayWriter openLines(final JacksonBindings bindings,
+            final OutputStream os) throws IOException {
+        JacksonArrayWriter writer = new JacksonArrayWriter(bindings, os, true);
+        // Root values are otherwise separated by a space
+        writer.generator.setRootValueSeparator(null);
+        return writer;
+    }
+
+    @Override
+    public void write(final Object element) throws IOException {
+        bindings.writer(element).writeValue(generator, element);
+        if (lines) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!lines) {
+            generator.writeEndArray();
+        }
+        // The target is never auto-closed, so this only flushes it
+        generator.close();
+    }
+
+    @Override
+    public void abort() throws IOException {
+        // Otherwise closing the generator ends any open array and objects
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.close();
+    }
+}
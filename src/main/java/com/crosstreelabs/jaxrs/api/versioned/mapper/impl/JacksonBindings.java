@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Caches an ObjectReader and ObjectWriter per class for a Jackson 2 mapper.
+ *
+ * Binding through `ObjectMapper.readValue` or `writeValue` looks up the root
+ * (de)serializer in the mapper's shared caches on every call, while a reader
+ * or writer bound to a type resolves it once, when created. Readers and writers
+ * are immutable, so each class gets exactly one, built on first use.
+ *
+ * They are created with `ObjectMapper.reader(Class)` and
+ * `ObjectWriter.withType(Class)`, which Jackson 2.6 deprecates in favour of
+ * `readerFor` and `forType`. Those replacements don't exist in Jackson 2.4,
+ * which the library still supports, so the older calls stay.
+ */
+final class JacksonBindings {
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+    private final ClassValue<ObjectReader> readers = new ClassValue<ObjectReader>() {
+        @Override
+        protected ObjectReader computeValue(final Class<?> type) {
+            return mapper.reader(type);
+        }
+    };
+    private final ClassValue<ObjectWriter> writers = new ClassValue<ObjectWriter>() {
+        @Override
+        protected ObjectWriter computeValue(final Class<?> type) {
+            return writer.withType(type);
+        }
+    };
+
+    JacksonBindings(final ObjectMapper mapper) {
+        this(mapper, mapper.writer());
+    }
+    /**
+     * @param mapper The mapper to bind with
+     * @param writer The writer to derive per-class writers from. Values are
+     * never flushed after being written, which only has an effect when writing
+     * into a generator that something else owns.
+     */
+    JacksonBindings(final ObjectMapper mapper, final ObjectWriter writer) {
+        this.mapper = mapper;
+        this.writer = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    ObjectMapper mapper() {
+        return mapper;
+    }
+
+    ObjectReader reader(final Class<?> type) {
+        return readers.get(type);
+    }
+
+    ObjectWriter writer(final Object value) {
+        return value == null ? writer : writers.get(value.getClass());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.crosstreelabs.jaxrs.api.versioned.mapper.StreamingMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+/**
+ * A mapper for the MessagePack format, the `msgpack` structure, built on the
+ * Jackson data format from the msgpack-java project. Value objects are bound
+ * exactly as by {@link Jackson2JsonMapper}.
+ * 
+ * MessagePack prefixes every array with its length, so an array can't be
+ * written until all of its elements are known. This mapper therefore doesn't
+ * stream arrays, and collections are serialized whole.
+ */
+public class MessagePackMapper implements StreamingMapper {
+    public static final String[] SUPPORTS = new String[]{"msgpack"};
+    private static final ObjectMapper MAPPER = AbstractJackson2Mapper.configure(
+            new ObjectMapper(new MessagePackFactory()));
+    private static final JacksonBindings BINDINGS = new JacksonBindings(MAPPER);
+
+    @Override
+    public String[] supportedStructures() {
+        return SUPPORTS;
+    }
+
+    @Override
+    public <T> T convertValue(final Object from, final Class<T> to) {
+        return MAPPER.convertValue(from, to);
+    }
+
+    @Override
+    public <T> T readValue(final InputStream is, final Class<T> to) throws IOException {
+        return BINDINGS.reader(to).readValue(is);
+    }
+
+    @Override
+    public byte[] asBytes(final Object from) throws IOException {
+        return BINDINGS.writer(from).writeValueAsBytes(from);
+    }
+
+    @Override
+    public void writeTo(final Object from, final OutputStream os) throws IOException {
+        BINDINGS.writer(from).writeValue(os, from);
+    }
+    
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.processor;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates the value object index that
+ * {@link com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry#registerIndexed()}
+ * loads, so that applications don't need to register value objects by hand or
+ * scan the class path for them at startup.
+ * 
+ * Every concrete, top level or static nested class annotated with @Version and
+ * implementing ValueObject is written to the index, one per line, as its
+ * binary name followed by its version and content types, separated by tabs.
+ * The registry indexes the classes under these, without reading their
+ * annotations. Entries already in the index from an earlier, incremental
+ * compilation are kept as long as their classes still qualify, and dropped
+ * otherwise.
+ *
+ * Other than the @Version annotation itself, the processor refers to the
+ * runtime classes only by name, so that the registry and its dependencies,
+ * such as JAX-RS, need not be loadable in the compiler.
+ */
+@SupportedAnnotationTypes("com.crosstreelabs.jaxrs.api.versioned.annotation.Version")
+public class ValueObjectIndexProcessor extends AbstractProcessor {
+    private static final String VALUE_OBJECT = "com.crosstreelabs.jaxrs.api.versioned.ValueObject";
+    /** Must match ValueObjectRegistry.INDEX_RESOURCE. */
+    private static final String INDEX_RESOURCE = "META-INF/jaxrs-versioning/value-objects";
+    
+    private final Map<String, String> entries = new TreeMap<>();
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+            final RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write();
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(Version.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            TypeElement type = (TypeElement)element;
+            if (isIndexable(type, true)) {
+                String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+                entries.put(name, entry(name, type));
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Determines whether a class belongs in the index: it must be annotated
+     * with @Version, concrete, instantiable without an enclosing instance, and
+     * implement ValueObject.
+     * @param type The class
+     * @param warn Whether to warn about annotated classes that don't qualify
+     * @return True if the class belongs in the index
+     */
+    protected boolean isIndexable(final TypeElement type, final boolean warn) {
+        if (type.getKind() != ElementKind.CLASS
+                || type.getAnnotation(Version.class) == null
+                || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL
+                && !type.getModifiers().contains(Modifier.STATIC)) {
+            if (warn) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "@Version class is not static, and will not be indexed", type);
+            }
+            return false;
+        }
+        TypeElement valueObject = processingEnv.getElementUtils().getTypeElement(VALUE_OBJECT);
+        if (valueObject == null || !processingEnv.getTypeUtils().isAssignable(
+                type.asType(), valueObject.asType())) {
+            if (warn) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "@Version class does not implement ValueObject, and will not be indexed", type);
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    protected String entry(final String name, final TypeElement type) {
+        Version version = type.getAnnotation(Version.class);
+        StringBuilder sb = new StringBuilder(name)
+                .append('\t').append(version.version())
+                .append('\t').append(join(version.contentType()));
+        return sb.toString();
+    }
+    
+    protected void write() {
+        // Keep entries for classes that weren't part of this compilation, as
+        // long as they still exist and qualify
+        boolean pruned = false;
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(
+                    StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    existing.openInputStream(), StandardCharsets.UTF_8))) {
+                for (String line; (line = reader.readLine()) != null;) {
+                    String name = className(line);
+                    if (name == null || entries.containsKey(name)) {
+                        continue;
+                    }
+                    TypeElement type = typeElement(name);
+                    if (type != null && isIndexable(type, false)) {
+                        entries.put(name, entry(name, type));
+                    } else {
+                        pruned = true;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // No existing index
+        }
+        if (entries.isEmpty() && !pruned) {
+            return;
+        }
+        
+        try {
+            FileObject index = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(),
+                    StandardCharsets.UTF_8)) {
+                for (String entry : entries.values()) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write value object index: "+ex.getMessage());
+        }
+    }
+    
+    /**
+     * Finds a class by the binary name recorded in the index.
+     */
+    private TypeElement typeElement(final String name) {
+        TypeElement type = processingEnv.getElementUtils().getTypeElement(name);
+        if (type == null && name.indexOf('$') >= 0) {
+            type = processingEnv.getElementUtils().getTypeElement(name.replace('$', '.'));
+        }
+        return type != null
+                && processingEnv.getElementUtils().getBinaryName(type).contentEquals(name)
+                ? type
+                : null;
+    }
+    /**
+     * Extracts the class name from a line of the index.
+     * @return The binary class name, or null for blank and comment lines
+     */
+    private static String className(final String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        int idx = trimmed.indexOf('\t');
+        return idx < 0 ? trimmed : trimmed.substring(0, idx);
+    }
+    private static String join(final String[] strs) {
+        StringBuilder sb = new StringBuilder();
+        for (String str : strs) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(str);
+        }
+        return sb.toString();
+    }
+}
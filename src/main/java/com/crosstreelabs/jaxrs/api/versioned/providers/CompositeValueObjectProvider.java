@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.Negotiation;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.ws.rs.NotAcceptableException;
+import javax.ws.rs.NotSupportedException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Reads and writes value objects in every structure supported by a set of
+ * mappers, so that a single provider can serve JSON, XML and binary formats.
+ * 
+ * A lookup table from structure suffix to mapper is built once, up front.
+ * Each request then costs one (cached) negotiation and one table lookup on the
+ * negotiated structure, instead of the runtime probing a separate provider per
+ * mapper. The negotiation is handed on to the chosen provider, which neither
+ * repeats it nor checks the structure again.
+ */
+public class CompositeValueObjectProvider
+        implements MessageBodyReader<ValueObject>, MessageBodyWriter<ValueObject> {
+    private final Map<String, StandardValueObjectProvider> providers;
+    
+    /**
+     * @param mappers The mappers to serve, none of which may support the same
+     * structure as another
+     * @throws IllegalArgumentException If two mappers support the same
+     * structure
+     */
+    public CompositeValueObjectProvider(final Mapper... mappers) {
+        Map<String, StandardValueObjectProvider> map = new HashMap<>();
+        for (Mapper mapper : mappers) {
+            StandardValueObjectProvider provider = new StandardValueObjectProvider(mapper);
+            for (String structure : mapper.supportedStructures()) {
+                if (map.put(structure, provider) != null) {
+                    throw new IllegalArgumentException("More than one mapper supports the '"+structure+"' structure");
+                }
+            }
+        }
+        this.providers = Collections.unmodifiableMap(map);
+    }
+    
+    /**
+     * @return The structures served, and the provider serving each
+     */
+    public Map<String, StandardValueObjectProvider> getProviders() {
+        return providers;
+    }
+    /**
+     * Hands the request on to each provider, which evaluate it against the
+     * ETags of cached representations.
+     */
+    @Context
+    public void setRequest(final Request request) {
+        for (StandardValueObjectProvider provider : providers.values()) {
+            provider.setRequest(request);
+        }
+    }
+    
+    //~ MessageBodyReader/Writer impl ~~~~~~~~~~~~~~~~~~~~~
+    
+    @Override
+    public boolean isReadable(final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        if (!ValueObject.class.isAssignableFrom(type)) {
+            return false;
+        }
+        Negotiation negotiation = ValueObjectRegistry.negotiate(mediaType);
+        StandardValueObjectProvider provider = provider(negotiation);
+        return provider != null && provider.isReadable(type, negotiation);
+    }
+
+    @Override
+    public ValueObject readFrom(final Class<ValueObject> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, String> httpHeaders,
+            final InputStream entityStream)
+            throws IOException, WebApplicationException {
+        Negotiation negotiation = ValueObjectRegistry.negotiate(mediaType);
+        StandardValueObjectProvider provider = provider(negotiation);
+        if (provider == null) {
+            throw new NotSupportedException();
+        }
+        return provider.readFrom(negotiation, annotations, entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        StandardValueObjectProvider provider
+                = provider(ValueObjectRegistry.negotiate(mediaType));
+        return provider != null && provider.isWriteable(type, mediaType);
+    }
+
+    @Override
+    public long getSize(final ValueObject t,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final ValueObject t,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        Negotiation negotiation = ValueObjectRegistry.negotiate(mediaType);
+        StandardValueObjectProvider provider = provider(negotiation);
+        if (provider == null) {
+            throw new NotAcceptableException();
+        }
+        provider.writeTo(t, type, negotiation, annotations, httpHeaders,
+                entityStream);
+    }
+    
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    private StandardValueObjectProvider provider(final Negotiation negotiation) {
+        String structure = negotiation.getStructure();
+        return structure == null ? null : providers.get(structure);
+    }
+    
+}
@@ -0,0 +1,532 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.util.Instantiator;
+import com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils.IndexedMap;
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.InternalServerErrorException;
+
+/**
+ * Describes how a form is bound directly onto a value object: which
+ * properties the value object has, how each is set, and how a form value is
+ * converted to its type.
+ *
+ * The plan is resolved once per class and cached. Binding then walks the key
+ * path of each form value through the plan as the form is parsed, converting
+ * and setting scalar properties and creating nested objects on first use, so
+ * that neither an intermediate map nor the mapper is involved. Properties
+ * typed as maps receive the rest of their key paths as a hierarchical map,
+ * exactly as reading the whole form into a map would produce.
+ *
+ * Properties are discovered as the mappers discover them: every non-static,
+ * non-transient field declared by the class or its superclasses, whatever its
+ * visibility, is a property, and accessors are ignored. Unknown keys are
+ * ignored. Classes the plan cannot describe faithfully, such as those carrying
+ * mapper annotations, final fields or collection properties, are not bindable,
+ * and should be converted through the mapper instead.
+ */
+final class FormBinding {
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final String[] MAPPER_ANNOTATIONS = new String[]{
+        "com.fasterxml.jackson.", "org.codehaus.jackson.", "com.google.gson."
+    };
+    private static final ClassValue<FormBinding> BINDINGS = new ClassValue<FormBinding>() {
+        @Override
+        protected FormBinding computeValue(final Class<?> type) {
+            return new FormBinding(type, new HashMap<Class<?>, FormBinding>());
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<String, Property> properties = new HashMap<>();
+    private State state = State.RESOLVING;
+
+    /**
+     * Resolves the plan for a type, along with those of the types nested in
+     * it. Plans still being resolved further up are found in `building`, which
+     * breaks cycles between types.
+     */
+    private FormBinding(final Class<?> type,
+            final Map<Class<?>, FormBinding> building) {
+        this.type = type;
+        building.put(type, this);
+        this.state = isBean(type) && !hasMapperAnnotations(type)
+                && resolveProperties(building)
+                ? State.BINDABLE
+                : State.UNBINDABLE;
+    }
+
+    static FormBinding of(final Class<?> type) {
+        return BINDINGS.get(type);
+    }
+
+    /**
+     * @return True if forms can be bound directly onto the type
+     */
+    boolean isBindable() {
+        return state == State.BINDABLE;
+    }
+
+    /**
+     * Binds a form onto a new instance of the type. Query parameters replace
+     * body parameters of the same name wholesale, as they do when a form is
+     * read into a map.
+     * @param entityStream The body
+     * @param decode Whether to percent-decode keys and values of the body
+     * @param query The already decoded query parameters, or null if there are
+     * none
+     * @param limits The limits to enforce while parsing
+     * @return The new instance
+     * @throws IOException 
+     */
+    Object bind(final InputStream entityStream, final boolean decode,
+            final Map<String, String[]> query, final RequestLimits limits)
+            throws IOException {
+        final Node root = new Node(this, newInstance(type));
+        QueryStringUtils.parse(entityStream, decode, limits, new QueryStringUtils.PathHandler() {
+            @Override
+            public void value(final List<String> path, final String value) {
+                if (!path.isEmpty()) {
+                    root.set(path, 0, value);
+                }
+            }
+        });
+        if (query != null) {
+            final Set<String> replaced = new HashSet<>();
+            QueryStringUtils.parse(query, limits, new QueryStringUtils.PathHandler() {
+                @Override
+                public void value(final List<String> path, final String value) {
+                    if (path.isEmpty()) {
+                        return;
+                    }
+                    if (replaced.add(path.get(0))) {
+                        root.reset(path.get(0));
+                    }
+                    root.set(path, 0, value);
+                }
+            });
+        }
+        return root.instance;
+    }
+    
+    /**
+     * Creates an instance of a type to bind onto.
+     * @param type The type
+     * @return The new instance
+     * @throws IOException If the type can't be instantiated
+     */
+    static <T> T newInstance(final Class<T> type) throws IOException {
+        try {
+            return Instantiator.of(type).newInstance();
+        } catch (IllegalAccessException | InstantiationException ex) {
+            throw new IOException(ex);
+        }
+    }
+    
+    //~ Plan resolution ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    private boolean resolveProperties(final Map<Class<?>, FormBinding> building) {
+        try {
+            for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+                for (Field field : cls.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    String name = field.getName();
+                    // A field hides any of the same name further up
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+                            || field.isSynthetic() || properties.containsKey(name)) {
+                        continue;
+                    }
+                    if (Modifier.isFinal(modifiers)) {
+                        // The mappers can set final fields, but handles cannot
+                        return false;
+                    }
+                    field.setAccessible(true);
+                    MethodHandle handle = MethodHandles.lookup().unreflectSetter(field).asType(SETTER);
+                    if (!addProperty(name, field.getType(), field.getGenericType(),
+                            handle, building)) {
+                        return false;
+                    }
+                }
+            }
+        } catch (IllegalAccessException | SecurityException ex) {
+            return false;
+        }
+        return true;
+    }
+    
+    private boolean addProperty(final String name, final Class<?> raw,
+            final Type generic, final MethodHandle setter,
+            final Map<Class<?>, FormBinding> building) {
+        Converter converter = Converter.of(raw);
+        if (converter != null) {
+            properties.put(name, new Property(setter, raw.isPrimitive(), converter, null));
+            return true;
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            if (!raw.isAssignableFrom(IndexedMap.class) || !isObjectMap(generic)) {
+                return false;
+            }
+            properties.put(name, new Property(setter, false, null, null));
+            return true;
+        }
+        if (raw.getName().startsWith("java.") || raw.getName().startsWith("javax.")) {
+            return false;
+        }
+        FormBinding nested = building.get(raw);
+        if (nested == null) {
+            nested = new FormBinding(raw, building);
+        }
+        if (nested.state == State.UNBINDABLE) {
+            return false;
+        }
+        // A plan still RESOLVING is a cycle back to a type further up, and is
+        // accepted for now: should that type turn out not to be bindable, it
+        // fails, and so does every plan above it, this one included
+        properties.put(name, new Property(setter, false, null, nested));
+        return true;
+    }
+    
+    /**
+     * Determines whether instances of the type can be created and bound: it
+     * must be a public, concrete, top level or static class with a public
+     * no-arg constructor.
+     */
+    private static boolean isBean(final Class<?> type) {
+        int modifiers = type.getModifiers();
+        if (type.isInterface() || type.isArray() || type.isPrimitive()
+                || type.isEnum() || !Modifier.isPublic(modifiers)
+                || Modifier.isAbstract(modifiers)
+                || (type.getEnclosingClass() != null && !Modifier.isStatic(modifiers))) {
+            return false;
+        }
+        try {
+            return Modifier.isPublic(type.getConstructor().getModifiers());
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+    
+    private static boolean hasMapperAnnotations(final Class<?> type) {
+        if (hasMapperAnnotations(type.getAnnotations())) {
+            return true;
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (hasMapperAnnotations(constructor)) {
+                return true;
+            }
+        }
+        for (Method method : type.getMethods()) {
+            if (hasMapperAnnotations(method)) {
+                return true;
+            }
+        }
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (hasMapperAnnotations(field)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    private static boolean hasMapperAnnotations(final AccessibleObject member) {
+        return hasMapperAnnotations(member.getAnnotations());
+    }
+    private static boolean hasMapperAnnotations(final Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            String name = annotation.annotationType().getName();
+            for (String prefix : MAPPER_ANNOTATIONS) {
+                if (name.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Determines whether a map type can hold the strings and nested maps of
+     * a hierarchical map.
+     */
+    private static boolean isObjectMap(final Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return true;
+        }
+        Type[] args = ((ParameterizedType)type).getActualTypeArguments();
+        return (args[0] == String.class || isObject(args[0])) && isObject(args[1]);
+    }
+    private static boolean isObject(final Type type) {
+        if (type instanceof WildcardType) {
+            WildcardType wildcard = (WildcardType)type;
+            return wildcard.getLowerBounds().length == 0
+                    && wildcard.getUpperBounds()[0] == Object.class;
+        }
+        return type == Object.class;
+    }
+    
+    //~ Binding ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    private enum State {
+        /** The plan is being resolved, further up a cycle of types. */
+        RESOLVING,
+        BINDABLE,
+        UNBINDABLE
+    }
+    
+    private static final class Property {
+        final MethodHandle setter;
+        final boolean primitive;
+        /** Set for scalar properties. */
+        final Converter converter;
+        /** Set for nested object properties. */
+        final FormBinding binding;
+
+        Property(final MethodHandle setter, final boolean primitive,
+                final Converter converter, final FormBinding binding) {
+            this.setter = setter;
+            this.primitive = primitive;
+            this.converter = converter;
+            this.binding = binding;
+        }
+
+        void set(final Object instance, final Object value) {
+            if (value == null && primitive) {
+                return;
+            }
+            try {
+                setter.invokeExact(instance, value);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new InternalServerErrorException(ex);
+            }
+        }
+    }
+    
+    /**
+     * An object being bound, along with the nested objects and maps created
+     * for it so far.
+     */
+    private static final class Node {
+        final FormBinding binding;
+        final Object instance;
+        final Map<String, Object> children = new HashMap<>();
+
+        Node(final FormBinding binding, final Object instance) {
+            this.binding = binding;
+            this.instance = instance;
+        }
+
+        void set(final List<String> path, final int index, final String value) {
+            String name = path.get(index);
+            Property property = binding.properties.get(name);
+            if (property == null) {
+                return;
+            }
+            boolean last = index == path.size() - 1;
+            if (property.converter != null) {
+                if (!last) {
+                    throw new BadRequestException("Field '"+name+"' does not accept nested values");
+                }
+                try {
+                    property.set(instance, property.converter.convert(value));
+                } catch (IllegalArgumentException ex) {
+                    throw new BadRequestException("Invalid value for field '"+name+"'");
+                }
+                return;
+            }
+            if (last) {
+                throw new BadRequestException("Field '"+name+"' requires nested values");
+            }
+            if (property.binding == null) {
+                Map map = (Map)children.get(name);
+                if (map == null) {
+                    map = new IndexedMap();
+                    property.set(instance, map);
+                    children.put(name, map);
+                }
+                QueryStringUtils.put(map, path.subList(index + 1, path.size()), value);
+                return;
+            }
+            Node child = (Node)children.get(name);
+            if (child == null) {
+                try {
+                    child = new Node(property.binding,
+                            Instantiator.of(property.binding.type).newInstance());
+                } catch (IllegalAccessException | InstantiationException ex) {
+                    throw new InternalServerErrorException(ex);
+                }
+                property.set(instance, child.instance);
+                children.put(name, child);
+            }
+            child.set(path, index + 1, value);
+        }
+
+        void reset(final String name) {
+            children.remove(name);
+        }
+    }
+    
+    /**
+     * Converts form values to scalar property types, following the mappers:
+     * an empty value leaves a primitive at its default and sets anything else
+     * other than a string to null. Invalid values throw an
+     * IllegalArgumentException.
+     */
+    private abstract static class Converter {
+        abstract Object convert(String value);
+
+        static Converter of(final Class<?> type) {
+            if (type == String.class) {
+                return STRING;
+            }
+            if (type.isEnum()) {
+                return new EnumConverter(type);
+            }
+            Class<?> boxed = type.isPrimitive() ? BOXED.get(type) : type;
+            return NUMERIC.get(boxed);
+        }
+    }
+    private static final Converter STRING = new Converter() {
+        @Override
+        Object convert(final String value) {
+            return value;
+        }
+    };
+    private abstract static class TrimmingConverter extends Converter {
+        @Override
+        final Object convert(final String value) {
+            String str = value.trim();
+            return str.isEmpty() ? null : parse(str);
+        }
+        abstract Object parse(String value);
+    }
+    private static final class EnumConverter extends TrimmingConverter {
+        private final Class type;
+
+        EnumConverter(final Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Object parse(final String value) {
+            return Enum.valueOf(type, value);
+        }
+    }
+    private static final Map<Class<?>, Class<?>> BOXED = new HashMap<>();
+    private static final Map<Class<?>, Converter> NUMERIC = new HashMap<>();
+    static {
+        BOXED.put(boolean.class, Boolean.class);
+        BOXED.put(char.class, Character.class);
+        BOXED.put(byte.class, Byte.class);
+        BOXED.put(short.class, Short.class);
+        BOXED.put(int.class, Integer.class);
+        BOXED.put(long.class, Long.class);
+        BOXED.put(float.class, Float.class);
+        BOXED.put(double.class, Double.class);
+        NUMERIC.put(Boolean.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                if (value.equals("true")) {
+                    return Boolean.TRUE;
+                }
+                if (value.equals("false")) {
+                    return Boolean.FALSE;
+                }
+                throw new IllegalArgumentException(value);
+            }
+        });
+        NUMERIC.put(Character.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                if (value.length() != 1) {
+                    throw new IllegalArgumentException(value);
+                }
+                return value.charAt(0);
+            }
+        });
+        NUMERIC.put(Byte.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return Byte.valueOf(value);
+            }
+        });
+        NUMERIC.put(Short.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return Short.valueOf(value);
+            }
+        });
+        NUMERIC.put(Integer.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return Integer.valueOf(value);
+            }
+        });
+        NUMERIC.put(Long.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return Long.valueOf(value);
+            }
+        });
+        NUMERIC.put(Float.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return Float.valueOf(value);
+            }
+        });
+        NUMERIC.put(Double.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return Double.valueOf(value);
+            }
+        });
+        NUMERIC.put(BigInteger.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return new BigInteger(value);
+            }
+        });
+        NUMERIC.put(BigDecimal.class, new TrimmingConverter() {
+            @Override
+            Object parse(final String value) {
+                return new BigDecimal(value);
+            }
+        });
+    }
+}
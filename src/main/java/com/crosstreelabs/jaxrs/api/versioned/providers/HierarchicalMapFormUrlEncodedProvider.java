@@ -14,18 +14,15 @@
 package com.crosstreelabs.jaxrs.api.versioned.providers;
 
 import com.crosstreelabs.jaxrs.api.versioned.util.AnnotationUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.EncodingUtils;
 import com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.StreamUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.StringUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
+import com.crosstreelabs.jaxrs.api.versioned.util.Utf8Writer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
@@ -70,25 +67,13 @@ public class HierarchicalMapFormUrlEncodedProvider
             final Annotation[] annotations,
             final InputStream entityStream) throws IOException {
         // Request body params
-        Map<String, Object> result
-                = QueryStringUtils.toMap(StreamUtils.toString(entityStream));
+        boolean decode = AnnotationUtils.find(Encoded.class, annotations) == null;
+        RequestLimits limits = RequestLimits.getDefault();
+        Map<String, Object> result = QueryStringUtils.toMap(entityStream, decode, limits);
         
-        // Query string params
+        // Query string params, which the container has already decoded
         if (request != null) {
-            Map<String, String[]> tmp = request.getParameterMap();
-            Collection<String> coll = new ArrayList<>();
-            for (String key : tmp.keySet()) {
-                for (String value : tmp.get(key)) {
-                    coll.add(key+"="+value);
-                }
-            }
-            String tmpStr = StringUtils.join(coll,"&");
-            result.putAll(QueryStringUtils.toMap(tmpStr));
-        }
-        
-        // Decode if required
-        if (AnnotationUtils.find(Encoded.class, annotations) == null) {
-            return (Map)EncodingUtils.decode(result, StandardCharsets.UTF_8);
+            result.putAll(QueryStringUtils.toMap(request.getParameterMap(), limits));
         }
         return result;
     }
@@ -120,7 +105,12 @@ public class HierarchicalMapFormUrlEncodedProvider
             final OutputStream entityStream) throws IOException {
         
         boolean encoded = AnnotationUtils.find(Encoded.class, annotations) != null;
-        entityStream.write(QueryStringUtils.toQueryString(data, encoded, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8));
+        Utf8Writer writer = new Utf8Writer(entityStream);
+        try {
+            writer.write(QueryStringUtils.toQueryString(data, encoded, StandardCharsets.UTF_8));
+        } finally {
+            writer.close();
+        }
     }
 
 }
\ No newline at end of file
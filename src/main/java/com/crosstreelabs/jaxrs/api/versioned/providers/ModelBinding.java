@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Describes how models are converted into a particular value object: which
+ * models the value object declares, and for each model class seen, how to
+ * invoke its `consume(Model)` method, if it has one.
+ *
+ * Everything is resolved once per (model, value object) pair and cached, so
+ * converting a model costs neither reflection nor a NoSuchMethodException when
+ * the value object has no matching `consume` method.
+ */
+final class ModelBinding {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelBinding.class);
+    private static final MethodType CONSUMER = MethodType.methodType(void.class, Object.class, Object.class);
+    /** Marks model classes for which the value object has no usable consumer. */
+    private static final MethodHandle NONE = MethodHandles.constant(Object.class, null);
+    private static final ClassValue<ModelBinding> BINDINGS = new ClassValue<ModelBinding>() {
+        @Override
+        protected ModelBinding computeValue(final Class<?> type) {
+            return new ModelBinding(type);
+        }
+    };
+
+    private final Class<?> valueObject;
+    private final Set<Class<?>> models;
+    private final ConcurrentMap<Class<?>, MethodHandle> consumers = new ConcurrentHashMap<>();
+
+    private ModelBinding(final Class<?> valueObject) {
+        this.valueObject = valueObject;
+        Version version = valueObject.getAnnotation(Version.class);
+        this.models = version == null
+                ? Collections.<Class<?>>emptySet()
+                : Collections.unmodifiableSet(new HashSet<>(Arrays.asList(version.models())));
+    }
+
+    static ModelBinding of(final Class<?> valueObject) {
+        return BINDINGS.get(valueObject);
+    }
+
+    /**
+     * @param model The model class
+     * @return True if the value object lists the model in its @Version
+     */
+    boolean hasModel(final Class<?> model) {
+        return models.contains(model);
+    }
+
+    /**
+     * Returns a handle for the value object's `consume` method accepting the
+     * given model class, typed as `(Object vo, Object model)void`.
+     * @param model The model class
+     * @return The handle, or null if there is no usable consume method
+     */
+    MethodHandle consumer(final Class<?> model) {
+        MethodHandle handle = consumers.get(model);
+        if (handle == null) {
+            handle = resolve(model);
+            MethodHandle existing = consumers.putIfAbsent(model, handle);
+            if (existing != null) {
+                handle = existing;
+            }
+        }
+        return handle == NONE ? null : handle;
+    }
+
+    private MethodHandle resolve(final Class<?> model) {
+        for (Method method : valueObject.getDeclaredMethods()) {
+            if (!method.getName().equals("consume")
+                    || !Arrays.equals(method.getParameterTypes(), new Class<?>[]{model})) {
+                continue;
+            }
+            try {
+                return MethodHandles.lookup().unreflect(method).asType(CONSUMER);
+            } catch (IllegalAccessException ex) {
+                LOGGER.warn(ex.getClass().getName()+": "+ex.getMessage());
+                LOGGER.debug("", ex);
+            }
+        }
+        return NONE;
+    }
+}
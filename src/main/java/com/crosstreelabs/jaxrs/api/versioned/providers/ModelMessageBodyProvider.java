@@ -1,16 +1,17 @@
 package com.crosstreelabs.jaxrs.api.versioned.providers;
 
+import com.crosstreelabs.jaxrs.api.versioned.Negotiation;
 import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
 import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
-import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
 import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.util.Instantiator;
+import com.crosstreelabs.jaxrs.api.versioned.util.MapperUtils;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Type;
-import javax.ws.rs.NotSupportedException;
+import javax.ws.rs.NotAcceptableException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -31,19 +32,14 @@ public class ModelMessageBodyProvider implements MessageBodyWriter<Object> {
             final Type genericType,
             final Annotation[] annotations,
             final MediaType mediaType) {
-        Class<? extends ValueObject> vo = ValueObjectRegistry.findForMediaType(mediaType);
-        if (vo == null) {
-            throw new NotSupportedException();
-        }
-        if (!valueObjectHasModel(vo, type)) {
+        Negotiation negotiation = ValueObjectRegistry.negotiate(mediaType);
+        Class<? extends ValueObject> vo = negotiation.getValueObject();
+        // Runtimes probe every writer, so an unknown media type is a plain
+        // "no" rather than an exception; the negotiation is cached either way
+        if (vo == null || !valueObjectHasModel(vo, type)) {
             return false;
         }
-        for (String str : mapper.supportedStructures()) {
-            if (mediaType.getSubtype().endsWith("+"+str)) {
-                return true;
-            }
-        }
-        return false;
+        return negotiation.hasStructure(mapper.supportedStructures());
     }
 
     @Override
@@ -64,25 +60,35 @@ public class ModelMessageBodyProvider implements MessageBodyWriter<Object> {
             final MultivaluedMap<String, Object> httpHeaders,
             final OutputStream entityStream)
             throws IOException, WebApplicationException {
-        Class<? extends ValueObject> vo = ValueObjectRegistry.findForMediaType(mediaType);
+        Class<? extends ValueObject> vo
+                = ValueObjectRegistry.negotiate(mediaType).getValueObject();
+        if (vo == null) {
+            throw new NotAcceptableException();
+        }
         
         // See if the value object knows how to consume the model
-        try {
-            Method method = vo.getDeclaredMethod("consume", t.getClass());
-            ValueObject o = vo.newInstance();
-            method.invoke(o, t);
-            entityStream.write(mapper.asBytes(o));
-            return;
-        } catch (IllegalAccessException | IllegalArgumentException
-                | InstantiationException | InvocationTargetException
-                | NoSuchMethodException | SecurityException ex) {
-            LOGGER.warn(ex.getClass().getName()+": "+ex.getMessage());
-            LOGGER.debug("", ex);
+        MethodHandle consumer = ModelBinding.of(vo).consumer(t.getClass());
+        if (consumer != null) {
+            ValueObject o = null;
+            try {
+                o = Instantiator.of(vo).newInstance();
+                consumer.invokeExact((Object)o, t);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                LOGGER.warn(ex.getClass().getName()+": "+ex.getMessage());
+                LOGGER.debug("", ex);
+                o = null;
+            }
+            if (o != null) {
+                MapperUtils.writeTo(mapper, o, entityStream);
+                return;
+            }
         }
         
         // Otherwise, we'll try to map it
         try {
-            entityStream.write(mapper.asBytes(mapper.convertValue(t, vo)));
+            MapperUtils.writeTo(mapper, mapper.convertValue(t, vo), entityStream);
         } catch (Exception ex) {
             LOGGER.warn(ex.getClass().getName()+": "+ex.getMessage());
             LOGGER.debug("", ex);
@@ -93,13 +99,7 @@ public class ModelMessageBodyProvider implements MessageBodyWriter<Object> {
     
     protected boolean valueObjectHasModel(final Class<? extends ValueObject> vo,
             final Class<?> model) {
-        Version version = vo.getAnnotation(Version.class);
-        for (Class<?> known : version.models()) {
-            if (known.equals(model)) {
-                return true;
-            }
-        }
-        return false;
+        return ModelBinding.of(vo).hasModel(model);
     }
     
 }
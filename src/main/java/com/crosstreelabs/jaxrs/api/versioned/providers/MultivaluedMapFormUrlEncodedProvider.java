@@ -14,21 +14,15 @@
 package com.crosstreelabs.jaxrs.api.versioned.providers;
 
 import com.crosstreelabs.jaxrs.api.versioned.util.AnnotationUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.EncodingUtils;
 import com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.StreamUtils;
-import com.crosstreelabs.jaxrs.api.versioned.util.StringUtils;
-import java.io.ByteArrayOutputStream;
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
+import com.crosstreelabs.jaxrs.api.versioned.util.Utf8Writer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
@@ -37,7 +31,6 @@ import javax.ws.rs.Encoded;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
@@ -73,21 +66,13 @@ public class MultivaluedMapFormUrlEncodedProvider
             final MultivaluedMap<String, String> httpHeaders,
             final InputStream entityStream) throws IOException {
         // Request body params
-        MultivaluedMap result = parseForm(entityStream);
+        boolean decode = AnnotationUtils.find(Encoded.class, annotations) == null;
+        RequestLimits limits = RequestLimits.getDefault();
+        MultivaluedMap<String, String> result = parseForm(entityStream, decode, limits);
         
-        // Query string params
+        // Query string params, which the container has already decoded
         if (request != null) {
-            Map<String, String[]> tmp = request.getParameterMap();
-            for (String key : tmp.keySet()) {
-                for (String value : tmp.get(key)) {
-                    result.add(key, value);
-                }
-            }
-        }
-        
-        // Decode if required
-        if (AnnotationUtils.find(Encoded.class, annotations) == null) {
-            return (MultivaluedMap)EncodingUtils.decode(result, StandardCharsets.UTF_8);
+            QueryStringUtils.addAll(request.getParameterMap(), limits, result);
         }
         return result;
     }
@@ -120,51 +105,43 @@ public class MultivaluedMapFormUrlEncodedProvider
             final OutputStream entityStream) throws IOException {
         MultivaluedMap<String, String> formData = (MultivaluedMap<String, String>)data;
         boolean encoded = AnnotationUtils.find(Encoded.class, annotations) != null;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        OutputStreamWriter writer = new OutputStreamWriter(baos, "UTF-8");
+        Utf8Writer writer = new Utf8Writer(entityStream);
 
-        boolean first = true;
-        for (Map.Entry<String, List<String>> entry : formData.entrySet()) {
-            String encodedName = entry.getKey();
-            if (!encoded) encodedName = URLEncoder.encode(entry.getKey(), "UTF-8");
+        try {
+            boolean first = true;
+            for (Map.Entry<String, List<String>> entry : formData.entrySet()) {
+                String encodedName = entry.getKey();
+                if (!encoded) encodedName = URLEncoder.encode(entry.getKey(), "UTF-8");
 
-            for (String value : entry.getValue()) {
-                if (first) first = false;
-                else writer.write("&");
-                if (!encoded) {
-                    value = URLEncoder.encode(value, "UTF-8");
+                for (String value : entry.getValue()) {
+                    if (first) first = false;
+                    else writer.write("&");
+                    if (!encoded) {
+                        value = URLEncoder.encode(value, "UTF-8");
+                    }
+                    writer.write(encodedName);
+                    writer.write("=");
+                    writer.write(value);
                 }
-                writer.write(encodedName);
-                writer.write("=");
-                writer.write(value);
             }
-            writer.flush();
+        } finally {
+            writer.close();
         }
-
-        byte[] bytes = baos.toByteArray();
-        entityStream.write(bytes);
     }
 
     protected static MultivaluedMap<String, String> parseForm(
             final InputStream entityStream)
             throws IOException {
-        String str = StreamUtils.toString(entityStream);
-
-        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
-        if (str == null || str.isEmpty()) {
-            return result;
-        }
-        String[] params = str.split("&");
-
-        for (String param : params) {
-            if (param.indexOf('=') >= 0) {
-                String[] nv = param.split("=");
-                String val = nv.length > 1 ? nv[1] : "";
-                result.add(nv[0], val);
-            } else {
-                result.add(param, "");
-            }
-        }
-        return result;
+        return parseForm(entityStream, false);
+    }
+    protected static MultivaluedMap<String, String> parseForm(
+            final InputStream entityStream, final boolean decode)
+            throws IOException {
+        return parseForm(entityStream, decode, RequestLimits.getDefault());
+    }
+    protected static MultivaluedMap<String, String> parseForm(
+            final InputStream entityStream, final boolean decode,
+            final RequestLimits limits) throws IOException {
+        return QueryStringUtils.toMultivaluedMap(entityStream, decode, limits);
     }
 }
\ No newline at end of file
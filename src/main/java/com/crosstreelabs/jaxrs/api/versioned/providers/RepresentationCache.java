@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A memory-bounded, concurrent cache of the serialized representations of
+ * value objects marked {@link Version#cacheable}, keyed by the identity of the
+ * instance and the negotiated media type.
+ *
+ * Instances are held weakly, so caching a representation never keeps its
+ * value object alive, and entries whose value objects have been collected are
+ * purged as new ones are added. Once the cached bytes exceed the limit,
+ * entries are evicted using the same approximate second-chance policy as the
+ * {@link com.crosstreelabs.jaxrs.api.versioned.NegotiationCache}.
+ */
+public final class RepresentationCache {
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    /** The approximate cost of an entry beyond its bytes. */
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final ClassValue<Boolean> CACHEABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            Version version = type.getAnnotation(Version.class);
+            return version != null && version.cacheable();
+        }
+    };
+    private static final ClassValue<Boolean> TAGGED = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            Version version = type.getAnnotation(Version.class);
+            return version == null || version.tagged();
+        }
+    };
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long maxBytes;
+    private final ConcurrentMap<Key, Representation> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RepresentationCache(final long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param type A value object class
+     * @return True if the class allows its representations to be cached
+     */
+    static boolean isCacheable(final Class<?> type) {
+        return CACHEABLE.get(type);
+    }
+    /**
+     * @param type A value object class
+     * @return True if the class's cached representations carry an ETag
+     */
+    static boolean isTagged(final Class<?> type) {
+        return TAGGED.get(type);
+    }
+
+    Representation get(final Object vo, final MediaType mediaType) {
+        Representation representation = entries.get(new Key(vo, mediaType, null));
+        if (representation == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (!representation.referenced) {
+            representation.referenced = true;
+        }
+        hits.incrementAndGet();
+        return representation;
+    }
+
+    /**
+     * Caches a representation, unless it alone exceeds the limit.
+     * @return The representation, whether or not it was cached
+     */
+    Representation put(final Object vo, final MediaType mediaType,
+            final byte[] bytes) {
+        purge();
+        Representation representation = new Representation(bytes, isTagged(vo.getClass()));
+        if (representation.weight > maxBytes) {
+            return representation;
+        }
+        Representation previous = entries.put(new Key(vo, mediaType, collected), representation);
+        if (previous != null) {
+            weight.addAndGet(-previous.weight);
+        }
+        if (weight.addAndGet(representation.weight) > maxBytes) {
+            evict();
+        }
+        return representation;
+    }
+
+    void clear() {
+        for (Key key : entries.keySet()) {
+            Representation representation = entries.remove(key);
+            if (representation != null) {
+                weight.addAndGet(-representation.weight);
+            }
+        }
+    }
+
+    private void purge() {
+        for (Reference<?> ref; (ref = collected.poll()) != null;) {
+            Representation representation = entries.remove(ref);
+            if (representation != null) {
+                weight.addAndGet(-representation.weight);
+            }
+        }
+    }
+
+    private void evict() {
+        while (weight.get() > maxBytes) {
+            Map.Entry<Key, Representation> victim = null;
+            Iterator<Map.Entry<Key, Representation>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Representation> candidate = it.next();
+                if (victim == null) {
+                    victim = candidate;
+                }
+                if (!candidate.getValue().referenced) {
+                    victim = candidate;
+                    break;
+                }
+                candidate.getValue().referenced = false;
+            }
+            if (victim == null) {
+                return;
+            }
+            if (entries.remove(victim.getKey(), victim.getValue())) {
+                weight.addAndGet(-victim.getValue().weight);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    //~ Statistics ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+    public int size() {
+        return entries.size();
+    }
+    /**
+     * @return The approximate number of bytes held by the cache
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+    public long getHits() {
+        return hits.get();
+    }
+    public long getMisses() {
+        return misses.get();
+    }
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * A serialized representation, along with its strong entity tag, which is
+     * null for value objects that aren't tagged.
+     */
+    static final class Representation {
+        final byte[] bytes;
+        final EntityTag entityTag;
+        final int weight;
+        volatile boolean referenced;
+
+        Representation(final byte[] bytes, final boolean tagged) {
+            this.bytes = bytes;
+            this.entityTag = tagged ? new EntityTag(digest(bytes)) : null;
+            this.weight = bytes.length + ENTRY_OVERHEAD;
+        }
+
+        private static String digest(final byte[] bytes) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+                char[] chars = new char[32];
+                for (int i = 0; i < 16; i++) {
+                    chars[i << 1] = HEX[(hash[i] >> 4) & 0xf];
+                    chars[(i << 1) + 1] = HEX[hash[i] & 0xf];
+                }
+                return new String(chars);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new AssertionError("SHA-256 not supported");
+            }
+        }
+    }
+
+    /**
+     * Identifies a value object instance by identity, without keeping it
+     * alive. Keys used only for lookups are not registered with a queue.
+     */
+    private static final class Key extends WeakReference<Object> {
+        private final MediaType mediaType;
+        private final int hash;
+
+        Key(final Object vo, final MediaType mediaType,
+                final ReferenceQueue<Object> queue) {
+            super(vo, queue);
+            this.mediaType = mediaType;
+            this.hash = System.identityHashCode(vo) * 31 + mediaType.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            Object vo = get();
+            return vo != null && vo == other.get() && mediaType.equals(other.mediaType);
+        }
+    }
+}
@@ -14,23 +14,64 @@
 package com.crosstreelabs.jaxrs.api.versioned.providers;
 
 import com.crosstreelabs.jaxrs.api.versioned.AbstractValueObjectReaderWriter;
+import com.crosstreelabs.jaxrs.api.versioned.Negotiation;
 import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
 import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.util.MapperUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Map;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
+/**
+ * Reads and writes value objects through a single mapper.
+ *
+ * Value objects marked {@link com.crosstreelabs.jaxrs.api.versioned.annotation.Version#cacheable}
+ * are serialized once per instance and media type; later writes copy the
+ * cached bytes and carry a strong ETag, and a GET or HEAD whose If-None-Match
+ * matches it is answered with 304 Not Modified without writing anything.
+ * Those that aren't {@link com.crosstreelabs.jaxrs.api.versioned.annotation.Version#tagged}
+ * share the cached bytes but carry no ETag and are never answered with a 304.
+ */
 public class StandardValueObjectProvider
         extends AbstractValueObjectReaderWriter {
     private final Mapper mapper;
+    private final RepresentationCache cache;
+    private Request request;
     
     public StandardValueObjectProvider(final Mapper mapper) {
+        this(mapper, new RepresentationCache(RepresentationCache.DEFAULT_MAX_BYTES));
+    }
+    /**
+     * @param mapper The mapper
+     * @param cache The cache for the representations of cacheable value
+     * objects, or null to serialize every write
+     */
+    public StandardValueObjectProvider(final Mapper mapper,
+            final RepresentationCache cache) {
         this.mapper = mapper;
+        this.cache = cache;
+    }
+
+    /**
+     * @return The cache of serialized representations, or null if disabled
+     */
+    public RepresentationCache getRepresentationCache() {
+        return cache;
+    }
+    @Context
+    public void setRequest(final Request request) {
+        this.request = request;
     }
 
     @Override
@@ -38,15 +79,48 @@ public class StandardValueObjectProvider
             final Type genericType,
             final Annotation[] annotations,
             final MediaType mediaType) {
-        if (!super.isReadable(type, genericType, annotations, mediaType)) {
+        if (!ValueObject.class.isAssignableFrom(type)) {
             return false;
         }
-        for (String str : mapper.supportedStructures()) {
-            if (mediaType.getSubtype().endsWith("+"+str)) {
-                return true;
-            }
-        }
-        return false;
+        Negotiation negotiation = ValueObjectRegistry.negotiate(mediaType);
+        return negotiation.hasStructure(mapper.supportedStructures())
+                && isReadable(type, negotiation);
+    }
+
+    // The negotiated overloads are opened to the package for the
+    // CompositeValueObjectProvider, which has negotiated the media type and
+    // matched its structure to this provider already.
+
+    @Override
+    protected boolean isReadable(final Class<?> type,
+            final Negotiation negotiation) {
+        return super.isReadable(type, negotiation);
+    }
+
+    @Override
+    protected ValueObject readFrom(final Negotiation negotiation,
+            final Annotation[] annotations,
+            final InputStream entityStream)
+            throws IOException, WebApplicationException {
+        return super.readFrom(negotiation, annotations, entityStream);
+    }
+
+    @Override
+    protected boolean isWriteable(final Class<?> type,
+            final MediaType mediaType) {
+        return super.isWriteable(type, mediaType);
+    }
+
+    @Override
+    protected void writeTo(final ValueObject obj,
+            final Class<?> type,
+            final Negotiation negotiation,
+            final Annotation[] annotations,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        super.writeTo(obj, type, negotiation, annotations, httpHeaders,
+                entityStream);
     }
 
     @Override
@@ -66,7 +140,37 @@ public class StandardValueObjectProvider
             final MediaType mediaType,
             final MultivaluedMap<String, Object> headers,
             final OutputStream entityStream) throws IOException {
-        entityStream.write(mapper.asBytes(obj));
+        if (cache == null || !RepresentationCache.isCacheable(obj.getClass())) {
+            MapperUtils.writeTo(mapper, obj, entityStream);
+            return;
+        }
+        RepresentationCache.Representation representation = cache.get(obj, mediaType);
+        if (representation == null) {
+            representation = cache.put(obj, mediaType, mapper.asBytes(obj));
+        }
+        // Leave any tag the resource chose, and its preconditions, alone
+        if (representation.entityTag != null && !headers.containsKey(HttpHeaders.ETAG)) {
+            headers.putSingle(HttpHeaders.ETAG, representation.entityTag);
+            evaluatePreconditions(representation);
+        }
+        entityStream.write(representation.bytes);
+    }
+
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private void evaluatePreconditions(
+            final RepresentationCache.Representation representation) {
+        if (request == null) {
+            return;
+        }
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return;
+        }
+        Response.ResponseBuilder builder = request.evaluatePreconditions(representation.entityTag);
+        if (builder != null) {
+            throw new WebApplicationException(builder.build());
+        }
     }
     
 }
\ No newline at end of file
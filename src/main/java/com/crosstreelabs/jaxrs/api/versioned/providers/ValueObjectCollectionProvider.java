@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.Negotiation;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayReadingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.util.MapperUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
+import com.crosstreelabs.jaxrs.api.versioned.util.TypeUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.ValidationSupport;
+import com.crosstreelabs.jaxrs.api.versioned.util.ValidationUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.VersionMatcher;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.ws.rs.NotSupportedException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Writes a Collection, Iterable or Iterator of value objects as an array,
+ * streaming one element at a time, and reads an array into a lazy Iterator of
+ * value objects where the mapper supports it.
+ * 
+ * The element type is resolved from the generic type of the entity, and the
+ * media type is negotiated once against it rather than once per element. The
+ * stream is flushed every `flushInterval` elements, so that a client starts
+ * receiving a large array before it has been produced in full, and at the end
+ * of the array. Since no element is retained once written, an Iterator backed
+ * by a cursor can be paged through in constant memory. Likewise, a resource
+ * method taking an Iterator parses the request body one element at a time as
+ * it iterates. If the parameter is annotated with @Valid, each element is
+ * validated as it is pulled from the Iterator.
+ */
+public class ValueObjectCollectionProvider
+        implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    public static final int DEFAULT_FLUSH_INTERVAL = 100;
+    private static final Class<?> UNRESOLVED = Void.class;
+    
+    private final Mapper mapper;
+    private final int flushInterval;
+    private final ConcurrentMap<Type, Class<?>> elementTypes = new ConcurrentHashMap<>();
+    
+    public ValueObjectCollectionProvider(final Mapper mapper) {
+        this(mapper, DEFAULT_FLUSH_INTERVAL);
+    }
+    /**
+     * @param mapper The mapper to serialize elements with
+     * @param flushInterval The number of elements to write between flushes, or
+     * 0 to flush only once the array is complete
+     */
+    public ValueObjectCollectionProvider(final Mapper mapper,
+            final int flushInterval) {
+        if (flushInterval < 0) {
+            throw new IllegalArgumentException("Flush interval must not be negative");
+        }
+        this.mapper = mapper;
+        this.flushInterval = flushInterval;
+    }
+
+    //~ MessageBodyReader/Writer impl ~~~~~~~~~~~~~~~~~~~~~
+    
+    @Override
+    public boolean isReadable(final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        if (type != Iterator.class || !(mapper instanceof ArrayReadingMapper)) {
+            return false;
+        }
+        Class<?> element = elementType(genericType);
+        if (element == null) {
+            return false;
+        }
+        Negotiation negotiation = ValueObjectRegistry.negotiate(mediaType);
+        return readType(element, negotiation) != null
+                && negotiation.hasStructure(mapper.supportedStructures());
+    }
+
+    @Override
+    public Object readFrom(final Class<Object> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, String> httpHeaders,
+            final InputStream entityStream)
+            throws IOException, WebApplicationException {
+        Class<?> element = elementType(genericType);
+        Class<?> cls = element == null
+                ? null
+                : readType(element, ValueObjectRegistry.negotiate(mediaType));
+        if (cls == null || !(mapper instanceof ArrayReadingMapper)) {
+            throw new NotSupportedException();
+        }
+        Iterator<?> values = ((ArrayReadingMapper)mapper).readValues(
+                RequestLimits.getDefault().limit(entityStream), cls);
+        return ValidationSupport.isRequested(annotations)
+                ? new ValidatingIterator<>(values)
+                : values;
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        if (!Iterable.class.isAssignableFrom(type)
+                && !Iterator.class.isAssignableFrom(type)) {
+            return false;
+        }
+        Class<?> element = elementType(genericType);
+        if (element == null) {
+            return false;
+        }
+        VersionMatcher matcher = VersionMatcher.of(element);
+        return matcher != null && matcher.matches(mediaType)
+                && ValueObjectRegistry.negotiate(mediaType)
+                        .hasStructure(mapper.supportedStructures());
+    }
+
+    @Override
+    public long getSize(final Object t,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final Object t,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        Negotiation negotiation = ValueObjectRegistry.negotiate(mediaType);
+        httpHeaders.putSingle("Content-Type",
+                negotiation.getContentType(elementType(genericType)));
+        
+        Iterator<?> it = t instanceof Iterator
+                ? (Iterator<?>)t
+                : ((Iterable<?>)t).iterator();
+        ArrayWriter writer = MapperUtils.openArray(mapper, entityStream);
+        try {
+            for (int count = 1; it.hasNext(); count++) {
+                writer.write(it.next());
+                if (flushInterval > 0 && count % flushInterval == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException | RuntimeException | Error ex) {
+            // Leave the array unfinished, so that a failure part way through
+            // can't pass for a complete, shorter collection
+            try {
+                writer.abort();
+            } catch (IOException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+        writer.close();
+    }
+    
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    /**
+     * Resolves the value object element type of the generic type, caching the
+     * result since the same handful of resource method signatures are seen on
+     * every request.
+     * @return The element type, or null if it is not a value object
+     */
+    private Class<?> elementType(final Type genericType) {
+        if (genericType == null) {
+            return null;
+        }
+        Class<?> element = elementTypes.get(genericType);
+        if (element == null) {
+            element = TypeUtils.elementType(genericType);
+            if (element == null || !ValueObject.class.isAssignableFrom(element)) {
+                element = UNRESOLVED;
+            }
+            elementTypes.putIfAbsent(genericType, element);
+        }
+        return element == UNRESOLVED ? null : element;
+    }
+    
+    /**
+     * Determines the type to read elements as. As with single value objects,
+     * an abstract element type is resolved to the value object negotiated from
+     * the media type.
+     * @return The type to read, or null if the media type is incompatible
+     */
+    private static Class<?> readType(final Class<?> element,
+            final Negotiation negotiation) {
+        Class<? extends ValueObject> cls = negotiation.getValueObject();
+        if (cls != null && element.isAssignableFrom(cls)) {
+            return cls;
+        }
+        VersionMatcher matcher = VersionMatcher.of(element);
+        if (matcher != null && matcher.matches(negotiation.getMediaType())) {
+            return element;
+        }
+        return null;
+    }
+    
+    /**
+     * Validates each element as it is read, so that an invalid element fails
+     * the iteration at the point it is reached.
+     */
+    private static final class ValidatingIterator<T> implements Iterator<T> {
+        private final Iterator<T> delegate;
+        
+        ValidatingIterator(final Iterator<T> delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+        @Override
+        public T next() {
+            T next = delegate.next();
+            ValidationUtils.validate(next);
+            return next;
+        }
+        @Override
+        public void remove() {
+            delegate.remove();
+        }
+    }
+    
+}
@@ -13,8 +13,12 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.providers;
 
+import com.crosstreelabs.jaxrs.api.versioned.Consumer;
 import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
 import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.util.AnnotationUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.MapperUtils;
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -23,6 +27,7 @@ import java.lang.reflect.Type;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.Encoded;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
@@ -31,6 +36,14 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 
+/**
+ * Reads value objects from, and writes them to, form-urlencoded bodies.
+ *
+ * Value objects implementing {@link Consumer} receive the form as a
+ * hierarchical map. Others are bound directly from the parsed form wherever
+ * their properties allow it, falling back to converting the hierarchical map
+ * through the mapper otherwise.
+ */
 @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
 @Produces(MediaType.APPLICATION_FORM_URLENCODED)
 public class ValueObjectFormUrlEncodedProvider
@@ -65,6 +78,18 @@ public class ValueObjectFormUrlEncodedProvider
             final MultivaluedMap<String, String> httpHeaders,
             final InputStream entityStream)
             throws IOException {
+        if (Consumer.class.isAssignableFrom(type)) {
+            ValueObject vo = FormBinding.newInstance(type);
+            ((Consumer)vo).consume(MAP_PROVIDER.readFrom(request, annotations, entityStream));
+            return vo;
+        }
+        FormBinding binding = FormBinding.of(type);
+        if (binding.isBindable()) {
+            boolean decode = AnnotationUtils.find(Encoded.class, annotations) == null;
+            return type.cast(binding.bind(entityStream, decode,
+                    request == null ? null : request.getParameterMap(),
+                    RequestLimits.getDefault()));
+        }
         Map<String, Object> map = MAP_PROVIDER.readFrom(request, annotations, entityStream);
         return mapper.convertValue(map, type);
     }
@@ -95,7 +120,7 @@ public class ValueObjectFormUrlEncodedProvider
             final MultivaluedMap<String, Object> httpHeaders,
             final OutputStream entityStream)
             throws IOException, WebApplicationException {
-        entityStream.write(mapper.asBytes(t));
+        MapperUtils.writeTo(mapper, t, entityStream);
     }
     
 }
\ No newline at end of file
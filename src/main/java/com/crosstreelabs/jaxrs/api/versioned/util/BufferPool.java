@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * Recycles the byte and char buffers used to read and write entities, so that
+ * each request does not allocate its own.
+ *
+ * Each thread keeps at most one buffer of each kind. Taking a buffer hands
+ * over the thread's buffer, allocating a new one only if the thread has none
+ * to spare, and releasing it hands it back. Buffers that have grown beyond
+ * {@link #MAX_RETAINED} are left to the garbage collector rather than pinned
+ * to the thread. A buffer must not be used once it has been released.
+ *
+ * As with Jackson's own buffer recycling, a thread holds its buffers through a
+ * SoftReference in a plain ThreadLocal. The pooled threads of a container
+ * therefore pin neither the buffers under memory pressure nor, once the
+ * application is undeployed, the classes of this library.
+ */
+public final class BufferPool {
+    public static final int BUFFER_SIZE = 8192;
+    public static final int MAX_RETAINED = 64 * 1024;
+    private static final ThreadLocal<SoftReference<Slot>> SLOTS = new ThreadLocal<>();
+
+    private BufferPool() {}
+
+    /**
+     * @return A byte buffer of at least {@link #BUFFER_SIZE} bytes
+     */
+    public static byte[] bytes() {
+        Slot slot = slot();
+        byte[] buf = slot.bytes;
+        if (buf == null) {
+            return new byte[BUFFER_SIZE];
+        }
+        slot.bytes = null;
+        return buf;
+    }
+    /**
+     * @return A char buffer of at least {@link #BUFFER_SIZE} chars
+     */
+    public static char[] chars() {
+        Slot slot = slot();
+        char[] buf = slot.chars;
+        if (buf == null) {
+            return new char[BUFFER_SIZE];
+        }
+        slot.chars = null;
+        return buf;
+    }
+
+    /**
+     * Returns a byte buffer to the pool.
+     * @param buf The buffer, which may have been grown, or null
+     */
+    public static void release(final byte[] buf) {
+        if (buf != null && buf.length >= BUFFER_SIZE && buf.length <= MAX_RETAINED) {
+            slot().bytes = buf;
+        }
+    }
+    /**
+     * Returns a char buffer to the pool.
+     * @param buf The buffer, which may have been grown, or null
+     */
+    public static void release(final char[] buf) {
+        if (buf != null && buf.length >= BUFFER_SIZE && buf.length <= MAX_RETAINED) {
+            slot().chars = buf;
+        }
+    }
+
+    private static Slot slot() {
+        SoftReference<Slot> ref = SLOTS.get();
+        Slot slot = ref == null ? null : ref.get();
+        if (slot == null) {
+            slot = new Slot();
+            SLOTS.set(new SoftReference<>(slot));
+        }
+        return slot;
+    }
+
+    private static final class Slot {
+        byte[] bytes;
+        char[] chars;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A body, read straight into a growable array taken from the
+ * {@link BufferPool} so that it can be parsed without copying it again. The
+ * array must be released once the body has been parsed.
+ */
+final class EntityBuffer {
+    private byte[] bytes = BufferPool.bytes();
+    private int size;
+
+    static EntityBuffer read(final InputStream is) throws IOException {
+        EntityBuffer buffer = new EntityBuffer();
+        try {
+            for (int length = 0; (length = is.read(buffer.bytes, buffer.size, buffer.bytes.length - buffer.size)) != -1;) {
+                buffer.size += length;
+                if (buffer.size == buffer.bytes.length) {
+                    buffer.bytes = Arrays.copyOf(buffer.bytes, buffer.bytes.length << 1);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            buffer.release();
+            throw ex;
+        }
+        return buffer;
+    }
+    byte[] bytes() {
+        return bytes;
+    }
+    int size() {
+        return size;
+    }
+    void release() {
+        BufferPool.release(bytes);
+        bytes = null;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates instances of a class through its no-arg constructor.
+ *
+ * The constructor is resolved to a method handle once per class, on first use,
+ * and cached in a ClassValue. Creating an instance then skips the access checks
+ * and lookups that Class.newInstance performs on every call. Failures follow
+ * Class.newInstance: a missing or inaccessible constructor is reported as an
+ * InstantiationException or IllegalAccessException, and unchecked exceptions
+ * thrown by the constructor propagate as-is.
+ * @param <T> The type being instantiated
+ */
+public final class Instantiator<T> {
+    private static final MethodType OBJECT_FACTORY = MethodType.methodType(Object.class);
+    private static final ClassValue<Instantiator<?>> INSTANTIATORS = new ClassValue<Instantiator<?>>() {
+        @Override
+        protected Instantiator<?> computeValue(final Class<?> type) {
+            return new Instantiator<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final ReflectiveOperationException failure;
+
+    private Instantiator(final Class<T> type) {
+        this.type = type;
+        MethodHandle handle = null;
+        ReflectiveOperationException ex = null;
+        try {
+            if (type.isInterface() || type.isArray() || type.isPrimitive()
+                    || Modifier.isAbstract(type.getModifiers())) {
+                throw new InstantiationException(type.getName());
+            }
+            handle = MethodHandles.lookup()
+                    .unreflectConstructor(type.getDeclaredConstructor())
+                    .asType(OBJECT_FACTORY);
+        } catch (NoSuchMethodException e) {
+            ex = (InstantiationException)new InstantiationException(type.getName()).initCause(e);
+        } catch (InstantiationException | IllegalAccessException e) {
+            ex = e;
+        }
+        this.constructor = handle;
+        this.failure = ex;
+    }
+
+    /**
+     * Returns the cached instantiator for the given class.
+     * @param <T> The type being instantiated
+     * @param type The class
+     * @return The instantiator
+     */
+    public static <T> Instantiator<T> of(final Class<T> type) {
+        return (Instantiator<T>)INSTANTIATORS.get(type);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Creates a new instance.
+     * @return The new instance
+     * @throws InstantiationException If the class has no usable no-arg
+     * constructor, or the constructor threw a checked exception
+     * @throws IllegalAccessException If the constructor is not accessible
+     */
+    public T newInstance() throws InstantiationException, IllegalAccessException {
+        if (constructor == null) {
+            if (failure instanceof IllegalAccessException) {
+                throw (IllegalAccessException)new IllegalAccessException(failure.getMessage()).initCause(failure);
+            }
+            throw (InstantiationException)new InstantiationException(failure.getMessage()).initCause(failure);
+        }
+        try {
+            return type.cast((Object)constructor.invokeExact());
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw (InstantiationException)new InstantiationException(type.getName()).initCause(ex);
+        }
+    }
+}
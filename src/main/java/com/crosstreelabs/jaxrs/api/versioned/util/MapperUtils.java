@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayStreamingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.StreamingMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MapperUtils {
+    /**
+     * Serializes the object into the stream, streaming where the mapper
+     * supports it and falling back to {@link Mapper#asBytes} where it doesn't.
+     * @param mapper The mapper to serialize with
+     * @param from The object to serialize
+     * @param os The stream to write to
+     * @throws IOException 
+     */
+    public static void writeTo(final Mapper mapper, final Object from,
+            final OutputStream os) throws IOException {
+        if (mapper instanceof StreamingMapper) {
+            ((StreamingMapper)mapper).writeTo(from, os);
+        } else {
+            os.write(mapper.asBytes(from));
+        }
+    }
+
+    
+    /**
+     * Starts an array in the stream, streaming its elements where the mapper
+     * supports it. Where it doesn't, the elements are collected and the array
+     * is serialized as a list when the writer is closed.
+     * @param mapper The mapper to serialize with
+     * @param os The stream to write to
+     * @return The writer for the elements of the array
+     * @throws IOException 
+     */
+    public static ArrayWriter openArray(final Mapper mapper,
+            final OutputStream os) throws IOException {
+        if (mapper instanceof ArrayStreamingMapper) {
+            return ((ArrayStreamingMapper)mapper).openArray(os);
+        }
+        return new BufferedArrayWriter(mapper, os);
+    }
+    
+    private static final class BufferedArrayWriter implements ArrayWriter {
+        private final Mapper mapper;
+        private final OutputStream os;
+        private final List<Object> elements = new ArrayList<>();
+
+        BufferedArrayWriter(final Mapper mapper, final OutputStream os) {
+            this.mapper = mapper;
+            this.os = os;
+        }
+
+        @Override
+        public void write(final Object element) {
+            elements.add(element);
+        }
+
+        @Override
+        public void flush() {
+            // Nothing can be written until the array is complete
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeTo(mapper, elements, os);
+            os.flush();
+        }
+
+        @Override
+        public void abort() {
+            // Nothing has been written, and nothing should be
+            elements.clear();
+        }
+    }
+}
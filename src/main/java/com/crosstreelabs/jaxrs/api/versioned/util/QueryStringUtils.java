@@ -13,71 +13,292 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.util;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
 
 public class QueryStringUtils {
     public static Map<String, Object> toMap(final String queryString)
             throws UnsupportedEncodingException {
-        final Map result = new IndexedMap();
         if (queryString == null || queryString.isEmpty()) {
-            return result;
-        }
-        
-        // Split into parameter pairs
-        final String params[] = queryString.split("&");
-        for (String param : params) {
-            final String[] parts = param.split("=", 2);
-            final String[] path = keyToPath(parts[0]);
-            final String value = parts.length > 1 ? parts[1] : "";
-            
-            // Now iterate over the key path until we're done
-            Map map = result;
-            for (int i = 0; i < path.length; i++) {
-                String part = path[i];
-                // If no element exists for this part, we can add it straight
-                // away
-                if (!map.containsKey(part)) {
-                    // This is the end of the key path, so just put the value
-                    if (i >= path.length - 1) {
-                        map.put(part, value);
-                    } else {
-                        Map m = new IndexedMap();
-                        map.put(part, m);
-                        map = m;
-                    }
-                    continue;
-                }
-                
-                Object current = map.get(part);
-                // If it's already a map, we can continue on down the path
-                if (current instanceof Map) {
-                    if (i >= path.length - 1) {
-                        ((Map)current).put(part, value);
-                    } else {
-                        map = (Map)current;
-                    }
-                }
-                // If it's a scalar object, we need to convert it to a list
-                // (in map form for weird indices)
-                else {
+            return new IndexedMap();
+        }
+        byte[] bytes = queryString.getBytes(StandardCharsets.UTF_8);
+        return toMap(bytes, bytes.length, false, RequestLimits.UNLIMITED);
+    }
+    /**
+     * Reads a form-urlencoded body into a hierarchical map, where keys such as
+     * `a[b][c]` or `a.b.c` produce nested maps.
+     * @param is The body
+     * @param decode Whether to percent-decode keys and values
+     * @return The hierarchical map
+     * @throws IOException 
+     */
+    public static Map<String, Object> toMap(final InputStream is,
+            final boolean decode) throws IOException {
+        return toMap(is, decode, RequestLimits.UNLIMITED);
+    }
+    /**
+     * Reads a form-urlencoded body into a hierarchical map, enforcing the
+     * given limits as the body is read and parsed.
+     * @param is The body
+     * @param decode Whether to percent-decode keys and values
+     * @param limits The limits
+     * @return The hierarchical map
+     * @throws IOException 
+     */
+    public static Map<String, Object> toMap(final InputStream is,
+            final boolean decode, final RequestLimits limits) throws IOException {
+        EntityBuffer buffer = EntityBuffer.read(limits.limit(is));
+        try {
+            return toMap(buffer.bytes(), buffer.size(), decode, limits);
+        } finally {
+            buffer.release();
+        }
+    }
+    /**
+     * Builds a hierarchical map from parameters that have already been parsed
+     * and decoded, such as a servlet request's parameter map.
+     * @param params The parameters
+     * @return The hierarchical map
+     */
+    public static Map<String, Object> toMap(final Map<String, String[]> params) {
+        return toMap(params, RequestLimits.UNLIMITED);
+    }
+    /**
+     * Builds a hierarchical map from parameters that have already been parsed
+     * and decoded, enforcing the given limits.
+     * @param params The parameters
+     * @param limits The limits
+     * @return The hierarchical map
+     */
+    public static Map<String, Object> toMap(final Map<String, String[]> params,
+            final RequestLimits limits) {
+        final Map<String, Object> result = new IndexedMap();
+        parse(params, limits, new PathHandler() {
+            @Override
+            public void value(final List<String> path, final String value) {
+                put(result, path, value);
+            }
+        });
+        return result;
+    }
+    /**
+     * Reads a form-urlencoded body, handing each value to the handler along
+     * with its key split into path segments, without building a map.
+     * @param is The body
+     * @param decode Whether to percent-decode keys and values
+     * @param limits The limits to enforce as the body is read and parsed
+     * @param handler The handler to receive each value
+     * @throws IOException 
+     */
+    public static void parse(final InputStream is, final boolean decode,
+            final RequestLimits limits, final PathHandler handler)
+            throws IOException {
+        EntityBuffer buffer = EntityBuffer.read(limits.limit(is));
+        try {
+            parse(buffer.bytes(), buffer.size(), decode, limits, handler);
+        } finally {
+            buffer.release();
+        }
+    }
+    /**
+     * Hands each of the given already decoded parameters to the handler along
+     * with its key split into path segments.
+     * @param params The parameters
+     * @param limits The limits to enforce
+     * @param handler The handler to receive each value
+     */
+    public static void parse(final Map<String, String[]> params,
+            final RequestLimits limits, final PathHandler handler) {
+        List<String> path = new ArrayList<>();
+        int count = 0;
+        for (Map.Entry<String, String[]> entry : params.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            path.clear();
+            keyToPath(key, 0, key.length, false, limits, path);
+            for (String value : entry.getValue()) {
+                limits.checkParameters(++count);
+                limits.checkValueLength(value.length());
+                handler.value(path, value);
+            }
+        }
+    }
+    /**
+     * Reads a form-urlencoded body into a flat multivalued map.
+     * @param is The body
+     * @param decode Whether to percent-decode keys and values
+     * @return The multivalued map
+     * @throws IOException 
+     */
+    public static MultivaluedMap<String, String> toMultivaluedMap(
+            final InputStream is, final boolean decode) throws IOException {
+        return toMultivaluedMap(is, decode, RequestLimits.UNLIMITED);
+    }
+    /**
+     * Reads a form-urlencoded body into a flat multivalued map, enforcing the
+     * given limits as the body is read and parsed.
+     * @param is The body
+     * @param decode Whether to percent-decode keys and values
+     * @param limits The limits
+     * @return The multivalued map
+     * @throws IOException 
+     */
+    public static MultivaluedMap<String, String> toMultivaluedMap(
+            final InputStream is, final boolean decode,
+            final RequestLimits limits) throws IOException {
+        final MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        EntityBuffer buffer = EntityBuffer.read(limits.limit(is));
+        try {
+            parse(buffer.bytes(), buffer.size(), limits, new PairHandler() {
+                @Override
+                void pair(final byte[] buf, final int keyStart, final int keyEnd,
+                        final int valueStart, final int valueEnd) {
+                    result.add(string(buf, keyStart, keyEnd, decode),
+                            string(buf, valueStart, valueEnd, decode));
+                }
+            });
+        } finally {
+            buffer.release();
+        }
+        return result;
+    }
+    /**
+     * Adds parameters that have already been parsed and decoded, such as a
+     * servlet request's parameter map, to a flat multivalued map, enforcing
+     * the given limits.
+     * @param params The parameters
+     * @param limits The limits
+     * @param result The map to add to
+     */
+    public static void addAll(final Map<String, String[]> params,
+            final RequestLimits limits,
+            final MultivaluedMap<String, String> result) {
+        int count = 0;
+        for (Map.Entry<String, String[]> entry : params.entrySet()) {
+            for (String value : entry.getValue()) {
+                limits.checkParameters(++count);
+                limits.checkValueLength(value.length());
+                result.add(entry.getKey(), value);
+            }
+        }
+    }
+    
+    /**
+     * Parses the form in a single pass over its bytes. Pairs are split on `&`
+     * and `=`, keys are split into their path segments, and each key segment
+     * and value is percent-decoded in place in the buffer before becoming a
+     * String.
+     */
+    protected static Map<String, Object> toMap(final byte[] buf, final int len,
+            final boolean decode, final RequestLimits limits) {
+        final Map<String, Object> result = new IndexedMap();
+        parse(buf, len, decode, limits, new PathHandler() {
+            @Override
+            public void value(final List<String> path, final String value) {
+                put(result, path, value);
+            }
+        });
+        return result;
+    }
+    private static void parse(final byte[] buf, final int len,
+            final boolean decode, final RequestLimits limits,
+            final PathHandler handler) {
+        final List<String> path = new ArrayList<>();
+        parse(buf, len, limits, new PairHandler() {
+            @Override
+            void pair(final byte[] buf, final int keyStart, final int keyEnd,
+                    final int valueStart, final int valueEnd) {
+                path.clear();
+                keyToPath(buf, keyStart, keyEnd, decode, limits, path);
+                handler.value(path, string(buf, valueStart, valueEnd, decode));
+            }
+        });
+    }
+    /**
+     * Splits the form into pairs, checking the parameter count and value
+     * length of each before handing it on.
+     */
+    private static void parse(final byte[] buf, final int len,
+            final RequestLimits limits, final PairHandler handler) {
+        int count = 0;
+        int start = 0;
+        while (start < len) {
+            int end = start;
+            int eq = -1;
+            for (; end < len && buf[end] != '&'; end++) {
+                if (eq < 0 && buf[end] == '=') {
+                    eq = end;
+                }
+            }
+            if (end > start) {
+                limits.checkParameters(++count);
+                limits.checkValueLength(eq < 0 ? 0 : end - eq - 1);
+                if (eq < 0) {
+                    handler.pair(buf, start, end, end, end);
+                } else {
+                    handler.pair(buf, start, eq, eq + 1, end);
+                }
+            }
+            start = end + 1;
+        }
+    }
+    /**
+     * Puts a value into a hierarchical map at the given key path, creating
+     * nested maps as required. A key that is repeated turns its value into an
+     * indexed map.
+     * @param result The map
+     * @param path The key path
+     * @param value The value
+     */
+    public static void put(final Map result, final List<String> path,
+            final String value) {
+        // Now iterate over the key path until we're done
+        Map map = result;
+        for (int i = 0; i < path.size(); i++) {
+            String part = path.get(i);
+            boolean last = i >= path.size() - 1;
+            // If no element exists for this part, we can add it straight away
+            if (!map.containsKey(part)) {
+                // This is the end of the key path, so just put the value
+                if (last) {
+                    map.put(part, value);
+                } else {
                     Map m = new IndexedMap();
-                    m.put("0", current);
-                    if (i >= path.length) {
-                        m.put("1", value);
-                    }
-                    m.put("2", value);
                     map.put(part, m);
                     map = m;
                 }
+                continue;
+            }
+            
+            Object current = map.get(part);
+            // If it's already a map, we can continue on down the path
+            if (current instanceof Map) {
+                if (last) {
+                    ((Map)current).put(part, value);
+                } else {
+                    map = (Map)current;
+                }
+            }
+            // If it's a scalar object, we need to convert it to a list
+            // (in map form for weird indices)
+            else {
+                Map m = new IndexedMap();
+                m.put("0", current);
+                m.put("2", value);
+                map.put(part, m);
+                map = m;
             }
         }
-        return result;
     }
     
     public static String toQueryString(final Map<?,?> map, final boolean encoded, final Charset charset) {
@@ -162,48 +383,115 @@ public class QueryStringUtils {
     }
     
     protected static String[] keyToPath(final String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
         List<String> result = new ArrayList<>();
+        keyToPath(bytes, 0, bytes.length, false, RequestLimits.UNLIMITED, result);
+        return result.toArray(new String[result.size()]);
+    }
+    private static void keyToPath(final byte[] buf, final int start,
+            final int end, final boolean decode, final RequestLimits limits,
+            final List<String> result) {
         boolean bracketed = false;
-        String current = "";
-        for (int i = 0; i < key.length(); i++) {
-            char ch = key.charAt(i);
+        int segment = start;
+        for (int i = start; i < end; i++) {
+            byte ch = buf[i];
             
             if (ch == '[' && !bracketed) {
                 bracketed = true;
-                result.add(current.trim());
-                current = "";
+                addSegment(result, limits, segment(buf, segment, i, decode));
+                segment = i + 1;
                 continue;
             }
             if (ch == ']' && bracketed) {
                 bracketed = false;
-                result.add(current.trim());
-                current = "";
-                if (key.length() > i+1 && key.charAt(i+1) == '.') {
+                addSegment(result, limits, segment(buf, segment, i, decode));
+                if (end > i+1 && buf[i+1] == '.') {
                     i++;
                 }
-                if (key.length() > i+1 && key.charAt(i+1) == '[') {
+                if (end > i+1 && buf[i+1] == '[') {
                     bracketed = true;
                     i++;
                 }
+                segment = i + 1;
                 continue;
             }
             if (ch == '.') {
-                result.add(current.trim());
-                current = "";
+                addSegment(result, limits, segment(buf, segment, i, decode));
+                segment = i + 1;
                 continue;
             }
-            if (i >= key.length() - 1) {
-                result.add((current + ch).trim());
-                continue;
+            if (i >= end - 1) {
+                addSegment(result, limits, segment(buf, segment, end, decode));
             }
-            
-            current += ch;
         }
-        
-        return result.toArray(new String[result.size()]);
-        
+    }
+    private static void addSegment(final List<String> result,
+            final RequestLimits limits, final String segment) {
+        limits.checkKeyDepth(result.size() + 1);
+        result.add(segment);
+    }
+    private static String segment(final byte[] buf, int start, int end,
+            final boolean decode) {
+        while (start < end && (buf[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buf[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+        return string(buf, start, end, decode);
+    }
+    /**
+     * Creates a UTF-8 string from the given range, first percent-decoding it
+     * in place if required. Decoding never makes the range longer, so the
+     * decoded bytes are written over the encoded ones.
+     */
+    private static String string(final byte[] buf, final int start,
+            final int end, final boolean decode) {
+        if (!decode) {
+            return new String(buf, start, end - start, StandardCharsets.UTF_8);
+        }
+        int out = start;
+        for (int i = start; i < end; i++) {
+            byte ch = buf[i];
+            if (ch == '+') {
+                ch = ' ';
+            } else if (ch == '%') {
+                if (i + 2 >= end) {
+                    throw new IllegalArgumentException("Incomplete trailing escape (%) pattern");
+                }
+                int hi = Character.digit(buf[i+1], 16);
+                int lo = Character.digit(buf[i+2], 16);
+                if (hi < 0 || lo < 0) {
+                    throw new IllegalArgumentException("Illegal hex characters in escape (%) pattern");
+                }
+                ch = (byte)((hi << 4) + lo);
+                i += 2;
+            }
+            buf[out++] = ch;
+        }
+        return new String(buf, start, out - start, StandardCharsets.UTF_8);
     }
     
+    /**
+     * Receives the values of a form as they are parsed.
+     */
+    public abstract static class PathHandler {
+        /**
+         * Receives a value along with the path segments of its key. The path
+         * list is reused between calls, so must be copied to be kept.
+         * @param path The key path
+         * @param value The value
+         */
+        public abstract void value(List<String> path, String value);
+    }
+    private abstract static class PairHandler {
+        /**
+         * Receives a key/value pair as ranges of the buffer. A pair without an
+         * `=` has an empty value range.
+         */
+        abstract void pair(byte[] buf, int keyStart, int keyEnd,
+                int valueStart, int valueEnd);
+    }
     public static class IndexedMap extends HashMap<String, Object> {
         private int idx = 0;
 
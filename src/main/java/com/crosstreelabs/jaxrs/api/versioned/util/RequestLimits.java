@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Limits on the request bodies that the providers will read, so that a single
+ * hostile request cannot exhaust memory or CPU.
+ *
+ * The limits are enforced as the body is consumed rather than once it has been
+ * read: a body exceeding the maximum size fails with a 413 Request Entity Too
+ * Large as soon as the extra byte is read, and a form exceeding the maximum
+ * parameter count, key depth or value length fails with a 400 Bad Request as
+ * soon as the offending pair is parsed. Each kind of breach is counted
+ * separately.
+ *
+ * The providers use the limits set through {@link #setDefault}.
+ */
+public final class RequestLimits {
+    public static final long DEFAULT_MAX_BODY_BYTES = 10L * 1024 * 1024;
+    public static final int DEFAULT_MAX_PARAMETERS = 10000;
+    public static final int DEFAULT_MAX_KEY_DEPTH = 32;
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 1024 * 1024;
+    /** Imposes no limits, for parsing input that is already trusted. */
+    public static final RequestLimits UNLIMITED = new RequestLimits(
+            Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private static volatile RequestLimits defaultLimits = new RequestLimits(
+            DEFAULT_MAX_BODY_BYTES, DEFAULT_MAX_PARAMETERS,
+            DEFAULT_MAX_KEY_DEPTH, DEFAULT_MAX_VALUE_LENGTH);
+
+    private final long maxBodyBytes;
+    private final int maxParameters;
+    private final int maxKeyDepth;
+    private final int maxValueLength;
+    private final AtomicLong bodySizeBreaches = new AtomicLong();
+    private final AtomicLong parameterCountBreaches = new AtomicLong();
+    private final AtomicLong keyDepthBreaches = new AtomicLong();
+    private final AtomicLong valueLengthBreaches = new AtomicLong();
+
+    /**
+     * @param maxBodyBytes The maximum size of a body, in bytes
+     * @param maxParameters The maximum number of parameters in a form
+     * @param maxKeyDepth The maximum number of segments in a form key, such
+     * as 3 for `a[b][c]`
+     * @param maxValueLength The maximum length of a form value, in bytes as
+     * received
+     */
+    public RequestLimits(final long maxBodyBytes, final int maxParameters,
+            final int maxKeyDepth, final int maxValueLength) {
+        if (maxBodyBytes < 1 || maxParameters < 1 || maxKeyDepth < 1 || maxValueLength < 1) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxParameters = maxParameters;
+        this.maxKeyDepth = maxKeyDepth;
+        this.maxValueLength = maxValueLength;
+    }
+
+    /**
+     * @return The limits used by the providers
+     */
+    public static RequestLimits getDefault() {
+        return defaultLimits;
+    }
+    /**
+     * Sets the limits used by the providers.
+     * @param limits The limits
+     */
+    public static void setDefault(final RequestLimits limits) {
+        if (limits == null) {
+            throw new IllegalArgumentException("Limits must not be null");
+        }
+        defaultLimits = limits;
+    }
+
+    /**
+     * Wraps a body so that reading more than the maximum body size fails.
+     * @param is The body
+     * @return The limited body
+     */
+    public InputStream limit(final InputStream is) {
+        if (is == null || maxBodyBytes == Long.MAX_VALUE
+                || (is instanceof LimitedInputStream && ((LimitedInputStream)is).limits() == this)) {
+            return is;
+        }
+        return new LimitedInputStream(is);
+    }
+
+    void checkParameters(final int count) {
+        if (count > maxParameters) {
+            parameterCountBreaches.incrementAndGet();
+            throw new BadRequestException("Too many parameters");
+        }
+    }
+    void checkKeyDepth(final int depth) {
+        if (depth > maxKeyDepth) {
+            keyDepthBreaches.incrementAndGet();
+            throw new BadRequestException("Parameter key is nested too deeply");
+        }
+    }
+    void checkValueLength(final int length) {
+        if (length > maxValueLength) {
+            valueLengthBreaches.incrementAndGet();
+            throw new BadRequestException("Parameter value is too long");
+        }
+    }
+    
+    //~ Statistics ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+    public int getMaxKeyDepth() {
+        return maxKeyDepth;
+    }
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+    public long getBodySizeBreaches() {
+        return bodySizeBreaches.get();
+    }
+    public long getParameterCountBreaches() {
+        return parameterCountBreaches.get();
+    }
+    public long getKeyDepthBreaches() {
+        return keyDepthBreaches.get();
+    }
+    public long getValueLengthBreaches() {
+        return valueLengthBreaches.get();
+    }
+
+    private final class LimitedInputStream extends FilterInputStream {
+        private long remaining = maxBodyBytes;
+
+        LimitedInputStream(final InputStream in) {
+            super(in);
+        }
+
+        RequestLimits limits() {
+            return RequestLimits.this;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                consumed(1);
+            }
+            return b;
+        }
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            // Never read more than one byte past the limit
+            int length = in.read(b, off, (int)Math.min(len, Math.max(remaining, 0) + 1));
+            if (length > 0) {
+                consumed(length);
+            }
+            return length;
+        }
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = in.skip(Math.min(n, Math.max(remaining, 0) + 1));
+            if (skipped > 0) {
+                consumed(skipped);
+            }
+            return skipped;
+        }
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+        @Override
+        public synchronized void mark(final int readlimit) {}
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        private void consumed(final long length) {
+            remaining -= length;
+            if (remaining < 0) {
+                bodySizeBreaches.incrementAndGet();
+                throw new ClientErrorException("Request body is too large",
+                        Response.Status.REQUEST_ENTITY_TOO_LARGE);
+            }
+        }
+    }
+}
@@ -13,17 +13,29 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.util;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 public class StreamUtils {
     public static String toString(final InputStream is) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] buf = new byte[128];
-        for (int length = 0; (length = is.read(buf)) != -1;) {
-            baos.write(buf, 0, length);
+        return toString(is, RequestLimits.UNLIMITED);
+    }
+    /**
+     * Reads a stream into a string, failing as soon as the stream exceeds the
+     * maximum body size of the given limits.
+     * @param is The stream
+     * @param limits The limits
+     * @return The string
+     * @throws IOException 
+     */
+    public static String toString(final InputStream is,
+            final RequestLimits limits) throws IOException {
+        EntityBuffer buffer = EntityBuffer.read(limits.limit(is));
+        try {
+            return new String(buffer.bytes(), 0, buffer.size(), StandardCharsets.UTF_8);
+        } finally {
+            buffer.release();
         }
-        return baos.toString("UTF-8");
     }
 }
\ No newline at end of file
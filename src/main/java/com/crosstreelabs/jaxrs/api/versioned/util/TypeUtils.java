@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class TypeUtils {
+    /**
+     * Resolves the element type of an Iterable or Iterator from its generic
+     * type. Type variables are followed through subclasses, so both
+     * `List<UserV1>` and a `class Users extends ArrayList<UserV1>` resolve to
+     * `UserV1`. Wildcards and unbound type variables resolve to their upper
+     * bound.
+     * @param genericType The generic type of the Iterable or Iterator
+     * @return The element class, or null if it cannot be resolved
+     */
+    public static Class<?> elementType(final Type genericType) {
+        Type element = typeArgument(genericType, Iterable.class,
+                new HashMap<TypeVariable<?>, Type>());
+        if (element == null) {
+            element = typeArgument(genericType, Iterator.class,
+                    new HashMap<TypeVariable<?>, Type>());
+        }
+        return element == null ? null : toClass(element);
+    }
+    
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    
+    /**
+     * Finds the single type argument of the target as seen from the given type,
+     * substituting the bindings of every subclass on the way up.
+     */
+    private static Type typeArgument(final Type type, final Class<?> target,
+            final Map<TypeVariable<?>, Type> bindings) {
+        Class<?> raw;
+        Map<TypeVariable<?>, Type> resolved = new HashMap<>();
+        if (type instanceof Class) {
+            raw = (Class<?>)type;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType)type;
+            raw = (Class<?>)parameterized.getRawType();
+            TypeVariable<?>[] params = raw.getTypeParameters();
+            Type[] args = parameterized.getActualTypeArguments();
+            for (int i = 0; i < params.length && i < args.length; i++) {
+                Type arg = args[i];
+                if (arg instanceof TypeVariable && bindings.containsKey(arg)) {
+                    arg = bindings.get(arg);
+                }
+                resolved.put(params[i], arg);
+            }
+        } else {
+            return null;
+        }
+        if (!target.isAssignableFrom(raw)) {
+            return null;
+        }
+        if (raw == target) {
+            Type arg = resolved.get(target.getTypeParameters()[0]);
+            return arg == null ? target.getTypeParameters()[0] : arg;
+        }
+        for (Type iface : raw.getGenericInterfaces()) {
+            Type arg = typeArgument(iface, target, resolved);
+            if (arg != null) {
+                return arg;
+            }
+        }
+        return typeArgument(raw.getGenericSuperclass(), target, resolved);
+    }
+    
+    private static Class<?> toClass(final Type type) {
+        if (type instanceof Class) {
+            return (Class<?>)type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>)((ParameterizedType)type).getRawType();
+        }
+        if (type instanceof WildcardType) {
+            return toClass(((WildcardType)type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return toClass(((TypeVariable<?>)type).getBounds()[0]);
+        }
+        return null;
+    }
+}
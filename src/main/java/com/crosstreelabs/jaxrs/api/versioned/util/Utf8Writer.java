@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A writer that encodes UTF-8 straight into a pooled byte buffer, in place of
+ * an OutputStreamWriter and BufferedWriter pair and the buffers they allocate.
+ *
+ * Unpaired surrogates are written as `?`, as OutputStreamWriter writes them.
+ * Closing the writer flushes it and returns its buffer to the
+ * {@link BufferPool}, but leaves the stream open.
+ */
+public final class Utf8Writer extends Writer {
+    private final OutputStream os;
+    private byte[] buf = BufferPool.bytes();
+    private int count;
+    private char surrogate;
+
+    public Utf8Writer(final OutputStream os) {
+        this.os = os;
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        ensureOpen();
+        encode((char)c);
+    }
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        ensureOpen();
+        for (int i = off, end = off + len; i < end; i++) {
+            encode(cbuf[i]);
+        }
+    }
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        ensureOpen();
+        for (int i = off, end = off + len; i < end; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+        os.flush();
+    }
+    @Override
+    public void close() throws IOException {
+        if (buf == null) {
+            return;
+        }
+        try {
+            if (surrogate != 0) {
+                surrogate = 0;
+                buf[count++] = '?';
+            }
+            drain();
+            os.flush();
+        } finally {
+            BufferPool.release(buf);
+            buf = null;
+        }
+    }
+
+    private void encode(final char ch) throws IOException {
+        if (count > buf.length - 4) {
+            drain();
+        }
+        if (surrogate != 0) {
+            char high = surrogate;
+            surrogate = 0;
+            if (Character.isLowSurrogate(ch)) {
+                int cp = Character.toCodePoint(high, ch);
+                buf[count++] = (byte)(0xf0 | (cp >> 18));
+                buf[count++] = (byte)(0x80 | ((cp >> 12) & 0x3f));
+                buf[count++] = (byte)(0x80 | ((cp >> 6) & 0x3f));
+                buf[count++] = (byte)(0x80 | (cp & 0x3f));
+                return;
+            }
+            buf[count++] = '?';
+            if (count > buf.length - 3) {
+                drain();
+            }
+        }
+        if (ch < 0x80) {
+            buf[count++] = (byte)ch;
+        } else if (ch < 0x800) {
+            buf[count++] = (byte)(0xc0 | (ch >> 6));
+            buf[count++] = (byte)(0x80 | (ch & 0x3f));
+        } else if (Character.isHighSurrogate(ch)) {
+            surrogate = ch;
+        } else if (Character.isLowSurrogate(ch)) {
+            buf[count++] = '?';
+        } else {
+            buf[count++] = (byte)(0xe0 | (ch >> 12));
+            buf[count++] = (byte)(0x80 | ((ch >> 6) & 0x3f));
+            buf[count++] = (byte)(0x80 | (ch & 0x3f));
+        }
+    }
+    private void drain() throws IOException {
+        if (count > 0) {
+            os.write(buf, 0, count);
+            count = 0;
+        }
+    }
+    private void ensureOpen() throws IOException {
+        if (buf == null) {
+            throw new IOException("Writer closed");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.lang.annotation.Annotation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides whether a value object should be validated, without loading any
+ * javax.validation classes, so that it remains an optional dependency.
+ */
+public final class ValidationSupport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationSupport.class);
+    private static final Class<? extends Annotation> VALID = findValid();
+    
+    private ValidationSupport() {}
+    
+    /**
+     * @return True if javax.validation is present
+     */
+    public static boolean isAvailable() {
+        return VALID != null;
+    }
+    /**
+     * @param annotations The annotations of a parameter or resource method
+     * @return True if javax.validation is present and the annotations include
+     * @Valid
+     */
+    public static boolean isRequested(final Annotation[] annotations) {
+        return VALID != null && AnnotationUtils.find(VALID, annotations) != null;
+    }
+    
+    /**
+     * Resolves the @Valid annotation once, so that javax.validation remains an
+     * optional dependency without probing the class path on every request.
+     * @return The annotation type, or null if javax.validation is not present
+     */
+    private static Class<? extends Annotation> findValid() {
+        try {
+            return Class.forName("javax.validation.Valid").asSubclass(Annotation.class);
+        } catch (ClassNotFoundException ex) {
+            LOGGER.warn("Validation library not present");
+        }
+        return null;
+    }
+}
@@ -13,10 +13,11 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.util;
 
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Set;
 import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
 import javax.validation.Validation;
-import javax.validation.ValidationException;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
 
@@ -24,15 +25,83 @@ import javax.validation.ValidatorFactory;
  * We encapsulate the value object validation into another class so that we can
  * check if javax.validation is available before attempting to load any related
  * classes.
+ * 
+ * The default validator factory is bootstrapped once, on first use, and its
+ * validator is shared thereafter. Containers that manage their own factory can
+ * install it with {@link #setValidatorFactory} or {@link #setValidator}.
  */
 public class ValidationUtils {
+    private static final Object LOCK = new Object();
+    private static volatile Validator validator;
+    
+    /**
+     * Validates a value object, reporting every violation rather than only the
+     * first.
+     * @param vo The value object
+     * @throws ConstraintViolationException If the value object is invalid. Its
+     * message lists each violation as `path message`, sorted and separated by
+     * commas.
+     */
     public static <T> void validate(final T vo) {
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        Validator validator = factory.getValidator();
-        Collection<ConstraintViolation<T>> violations = validator.validate(vo);
+        Set<ConstraintViolation<T>> violations = getValidator().validate(vo);
         if (!violations.isEmpty()) {
-            ConstraintViolation<T> violation = violations.iterator().next();
-            throw new ValidationException(violation.getPropertyPath().toString()+" "+violation.getMessage());
+            throw new ConstraintViolationException(describe(violations), violations);
         }
     }
+    
+    /**
+     * @param violations The violations
+     * @return Each violation as `path message`, sorted and separated by commas
+     */
+    public static String describe(final Set<? extends ConstraintViolation<?>> violations) {
+        String[] descriptions = new String[violations.size()];
+        int i = 0;
+        for (ConstraintViolation<?> violation : violations) {
+            descriptions[i++] = violation.getPropertyPath()+" "+violation.getMessage();
+        }
+        Arrays.sort(descriptions);
+        StringBuilder result = new StringBuilder();
+        for (String description : descriptions) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(description);
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Returns the validator used by {@link #validate}, bootstrapping the
+     * default validator factory if none has been provided.
+     * @return The validator
+     */
+    public static Validator getValidator() {
+        Validator result = validator;
+        if (result == null) {
+            synchronized (LOCK) {
+                result = validator;
+                if (result == null) {
+                    result = Validation.buildDefaultValidatorFactory().getValidator();
+                    validator = result;
+                }
+            }
+        }
+        return result;
+    }
+    /**
+     * Replaces the validator used by {@link #validate}. Passing null reverts
+     * to lazily bootstrapping the default validator factory.
+     * @param validator The validator to use
+     */
+    public static void setValidator(final Validator validator) {
+        ValidationUtils.validator = validator;
+    }
+    /**
+     * Uses a validator from the given factory, for example the one managed by
+     * the container.
+     * @param factory The factory to obtain a validator from
+     */
+    public static void setValidatorFactory(final ValidatorFactory factory) {
+        setValidator(factory.getValidator());
+    }
 }
\ No newline at end of file
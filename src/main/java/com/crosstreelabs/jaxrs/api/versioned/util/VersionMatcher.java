@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A precompiled form of a @Version annotation that decides whether a media type
+ * is compatible with it.
+ *
+ * The content types of the annotation are parsed and lower-cased once, up
+ * front. Matching then compares the type, subtype (ignoring any structure
+ * suffix) and `v` parameter of a media type against that data in place,
+ * without creating any MediaType, String or boxed objects.
+ */
+public final class VersionMatcher {
+    private static final VersionMatcher UNVERSIONED = new VersionMatcher(-1, new String[0]);
+    private static final ClassValue<VersionMatcher> MATCHERS = new ClassValue<VersionMatcher>() {
+        @Override
+        protected VersionMatcher computeValue(final Class<?> type) {
+            Version version = type.getAnnotation(Version.class);
+            return version == null ? UNVERSIONED : new VersionMatcher(version);
+        }
+    };
+    private static final ConcurrentMap<Key, VersionMatcher> BY_ANNOTATION = new ConcurrentHashMap<>();
+
+    private final int version;
+    private final char[][] types;
+    private final char[][] subtypes;
+
+    public VersionMatcher(final Version version) {
+        this(version.version(), version.contentType());
+    }
+    public VersionMatcher(final int version, final String[] contentTypes) {
+        this.version = version;
+        this.types = new char[contentTypes.length][];
+        this.subtypes = new char[contentTypes.length][];
+        for (int i = 0; i < contentTypes.length; i++) {
+            MediaType mediaType = MediaType.valueOf(contentTypes[i]);
+            types[i] = mediaType.getType().toLowerCase(Locale.ENGLISH).toCharArray();
+            subtypes[i] = mediaType.getSubtype().toLowerCase(Locale.ENGLISH).toCharArray();
+        }
+    }
+
+    /**
+     * Returns the cached matcher for the given class.
+     * @param type The value object class
+     * @return The matcher, or null if the class is not annotated with @Version
+     */
+    public static VersionMatcher of(final Class<?> type) {
+        VersionMatcher matcher = MATCHERS.get(type);
+        return matcher == UNVERSIONED ? null : matcher;
+    }
+
+    /**
+     * Returns the cached matcher for the given annotation, for callers that
+     * only have the annotation at hand. Matchers are cached by the version and
+     * content types the annotation declares, since the hash of an annotation
+     * itself is computed reflectively over all of its members.
+     * @param version The annotation
+     * @return The matcher
+     */
+    public static VersionMatcher of(final Version version) {
+        Key key = new Key(version.version(), version.contentType());
+        VersionMatcher matcher = BY_ANNOTATION.get(key);
+        if (matcher == null) {
+            matcher = new VersionMatcher(key.version, key.contentTypes);
+            VersionMatcher existing = BY_ANNOTATION.putIfAbsent(key, matcher);
+            if (existing != null) {
+                matcher = existing;
+            }
+        }
+        return matcher;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Determines whether the given media type is compatible with the version.
+     * Has the same semantics as {@link VersionUtils#isCompatible}.
+     * @param mediaType The media type
+     * @return True if compatible
+     */
+    public boolean matches(final MediaType mediaType) {
+        int target = VersionUtils.parseVersion(mediaType.getParameters().get("v"));
+        if (target != -1 && target != version) {
+            return false;
+        }
+        String type = mediaType.getType();
+        String subtype = mediaType.getSubtype();
+        int end = subtype.indexOf('+');
+        if (end < 0) {
+            end = subtype.length();
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (isCompatible(types[i], subtypes[i], type, subtype, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mirrors `MediaType.isCompatible`, treating only the first `end`
+     * characters of the subtype as significant.
+     */
+    private static boolean isCompatible(final char[] allowedType,
+            final char[] allowedSubtype, final String type,
+            final String subtype, final int end) {
+        if (isWildcard(allowedType) || isWildcard(type, type.length())) {
+            return true;
+        }
+        if (!equalsIgnoreCase(allowedType, type, type.length())) {
+            return false;
+        }
+        return isWildcard(allowedSubtype) || isWildcard(subtype, end)
+                || equalsIgnoreCase(allowedSubtype, subtype, end);
+    }
+    private static boolean isWildcard(final char[] chars) {
+        return chars.length == 1 && chars[0] == '*';
+    }
+    private static boolean isWildcard(final String str, final int end) {
+        return end == 1 && str.charAt(0) == '*';
+    }
+    private static boolean equalsIgnoreCase(final char[] lower,
+            final String str, final int end) {
+        if (lower.length != end) {
+            return false;
+        }
+        for (int i = 0; i < end; i++) {
+            char ch = str.charAt(i);
+            if (ch >= 'A' && ch <= 'Z') {
+                ch += 'a' - 'A';
+            }
+            if (ch != lower[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Key {
+        final int version;
+        final String[] contentTypes;
+        final int hash;
+
+        Key(final int version, final String[] contentTypes) {
+            this.version = version;
+            this.contentTypes = contentTypes;
+            this.hash = 31 * version + Arrays.hashCode(contentTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return version == other.version
+                    && Arrays.equals(contentTypes, other.contentTypes);
+        }
+    }
+}
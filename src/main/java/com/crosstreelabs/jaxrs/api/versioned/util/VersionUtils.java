@@ -17,26 +17,25 @@ import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
 import javax.ws.rs.core.MediaType;
 
 public class VersionUtils {
+    /**
+     * Determines whether the given media type is compatible with the version.
+     * Request-path callers should prefer the cached matcher available through
+     * {@link VersionMatcher#of(Class)}, which avoids re-reading the annotation.
+     * @param mediaType
+     * @param version
+     * @return 
+     */
     public static boolean isCompatible(final MediaType mediaType,
             final Version version) {
-        // Remove suffix
-        MediaType target = mediaType;
-        int targetVersion = mediaType.getParameters().containsKey("v")
-                ? Integer.valueOf(mediaType.getParameters().get("v"))
-                : -1;
-        if (mediaType.toString().contains("+")) {
-            String str = mediaType.getType()+"/"+mediaType.getSubtype();
-            str = str.substring(0, str.indexOf("+"));
-            target = MediaType.valueOf(str);
-        }
-        for (String allowedType : version.contentType()) {
-            if (MediaType.valueOf(allowedType).isCompatible(target)
-                    && (targetVersion == -1
-                    || targetVersion == version.version())) {
-                return true;
-            }
-        }
-        return false;
+        return VersionMatcher.of(version).matches(mediaType);
+    }
+    /**
+     * Parses the value of a `v` media type parameter.
+     * @param v The parameter value, possibly null
+     * @return The version, or -1 if no version was given
+     */
+    public static int parseVersion(final String v) {
+        return v == null ? -1 : Integer.parseInt(v);
     }
     public static String defaultMediaType(final Version version) {
         if (version.contentType() == null || version.contentType().length == 0) {
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned;
+
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import javax.ws.rs.core.MediaType;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NegotiationCacheTest {
+    protected static final MediaType USER1_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json;v=1");
+    protected static final MediaType USER_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json");
+    protected static final Object GENERATION = new Object();
+
+    @Before
+    public void before() {
+        ValueObjectRegistry.clear();
+    }
+    @After
+    public void after() {
+        ValueObjectRegistry.clear();
+    }
+
+    @Test
+    public void testNegotiate() {
+        ValueObjectRegistry.register(UserV1.class, UserV2.class);
+        Negotiation negotiation = ValueObjectRegistry.negotiate(USER1_TYPE);
+        assertThat(negotiation.getValueObject(), is(equalTo((Class)UserV1.class)));
+        assertThat(negotiation.getVersion().version(), is(1));
+        assertThat(negotiation.getStructure(), is(equalTo("json")));
+        assertThat(negotiation.getContentType(), is(equalTo("application/vnd.crosstreelabs.user+json;v=1")));
+        assertThat(negotiation.hasStructure(new String[]{"xml", "json"}), is(true));
+        assertThat(negotiation.hasStructure(new String[]{"xml"}), is(false));
+
+        negotiation = ValueObjectRegistry.negotiate(USER_TYPE);
+        assertThat(negotiation.getValueObject(), is(equalTo((Class)UserV2.class)));
+        assertThat(negotiation.getContentType(), is(equalTo("application/vnd.crosstreelabs.user+json;v=2")));
+    }
+
+    @Test
+    public void testLookupIgnoresCase() {
+        ValueObjectRegistry.register(UserV1.class);
+        Negotiation negotiation = ValueObjectRegistry.negotiate(USER1_TYPE);
+        MediaType upper = MediaType.valueOf(UserV1.TYPE_STR.toUpperCase()+"+JSON;v=1");
+        assertThat(ValueObjectRegistry.negotiate(upper), is(sameInstance(negotiation)));
+        assertThat(ValueObjectRegistry.getNegotiationCache().size(), is(1));
+    }
+
+    @Test
+    public void testNegotiateWithoutMatch() {
+        Negotiation negotiation = ValueObjectRegistry.negotiate(MediaType.APPLICATION_JSON_TYPE);
+        assertThat(negotiation.getValueObject(), is(nullValue()));
+        assertThat(negotiation.getVersion(), is(nullValue()));
+        assertThat(negotiation.getContentType(), is(nullValue()));
+        assertThat(negotiation.getStructure(), is(nullValue()));
+    }
+
+    @Test
+    public void testRepeatedNegotiationHitsCache() {
+        ValueObjectRegistry.register(UserV1.class);
+        NegotiationCache cache = ValueObjectRegistry.getNegotiationCache();
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+
+        Negotiation first = ValueObjectRegistry.negotiate(USER1_TYPE);
+        Negotiation second = ValueObjectRegistry.negotiate(MediaType.valueOf(UserV1.TYPE_STR+"+json;v=1"));
+        assertThat(second, is(sameInstance(first)));
+        assertThat(cache.getMisses() - misses, is(1L));
+        assertThat(cache.getHits() - hits, is(1L));
+    }
+
+    @Test
+    public void testRegistrationInvalidatesCachedResults() {
+        assertThat(ValueObjectRegistry.negotiate(USER1_TYPE).getValueObject(), is(nullValue()));
+        ValueObjectRegistry.register(UserV1.class);
+        assertThat(ValueObjectRegistry.negotiate(USER1_TYPE).getValueObject(), is(equalTo((Class)UserV1.class)));
+        assertThat(ValueObjectRegistry.negotiate(USER_TYPE).getValueObject(), is(equalTo((Class)UserV1.class)));
+        ValueObjectRegistry.register(UserV2.class);
+        assertThat(ValueObjectRegistry.negotiate(USER_TYPE).getValueObject(), is(equalTo((Class)UserV2.class)));
+    }
+
+    @Test
+    public void testStaleGenerationIsAMiss() {
+        NegotiationCache cache = new NegotiationCache(4);
+        Negotiation negotiation = new Negotiation(USER1_TYPE, null);
+        cache.put(USER1_TYPE, GENERATION, negotiation);
+        assertThat(cache.get(USER1_TYPE, GENERATION), is(sameInstance(negotiation)));
+        assertThat(cache.get(USER1_TYPE, new Object()), is(nullValue()));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(1L));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        NegotiationCache cache = new NegotiationCache(8);
+        cache.put(USER1_TYPE, GENERATION, new Negotiation(USER1_TYPE, null));
+        for (int i = 0; i < 1000; i++) {
+            // Keep the hot entry referenced while hostile values flood in
+            cache.get(USER1_TYPE, GENERATION);
+            MediaType hostile = MediaType.valueOf("application/vnd.hostile"+i+"+json");
+            cache.put(hostile, GENERATION, new Negotiation(hostile, null));
+            assertThat(cache.size(), is(lessThanOrEqualTo(8)));
+        }
+        assertThat(cache.getEvictions(), is(993L));
+        assertThat(cache.get(USER1_TYPE, GENERATION).getMediaType(), is(equalTo(USER1_TYPE)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ensureCapacityMustBePositive() {
+        new NegotiationCache(0);
+    }
+}
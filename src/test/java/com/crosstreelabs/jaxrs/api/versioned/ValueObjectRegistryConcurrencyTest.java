@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.ws.rs.core.MediaType;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ValueObjectRegistryConcurrencyTest {
+    protected static final int READERS = 8;
+    protected static final int ITERATIONS = 50;
+    protected static final MediaType USER1_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json;v=1");
+    protected static final MediaType USER_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json");
+    protected static final Class[] LATE = new Class[]{
+        LateV1.class, LateV2.class, LateV3.class, LateV4.class,
+        OtherV1.class, OtherV2.class, OtherV3.class, OtherV4.class
+    };
+
+    private ExecutorService executor;
+
+    @Before
+    public void before() {
+        executor = Executors.newFixedThreadPool(READERS + LATE.length);
+    }
+    @After
+    public void after() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        ValueObjectRegistry.clear();
+    }
+
+    @Test
+    public void ensureReadersNeverSeePartialStateWhileRegistering() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            ValueObjectRegistry.clear();
+            ValueObjectRegistry.register(UserV1.class, UserV2.class);
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final AtomicBoolean writing = new AtomicBoolean(true);
+            List<Future<?>> readers = new ArrayList<>();
+            List<Future<?>> writers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        do {
+                            assertThat(ValueObjectRegistry.findForMediaType(USER1_TYPE),
+                                    is(equalTo((Class)UserV1.class)));
+                            assertThat(ValueObjectRegistry.findForMediaType(USER_TYPE),
+                                    is(equalTo((Class)UserV2.class)));
+                            for (Class cls : ValueObjectRegistry.getClasses()) {
+                                Version version = (Version)cls.getAnnotation(Version.class);
+                                MediaType type = MediaType.valueOf(version.contentType()[0]
+                                        +"+json;v="+version.version());
+                                assertThat(ValueObjectRegistry.findForMediaType(type),
+                                        is(equalTo(cls)));
+                            }
+                        } while (writing.get());
+                        return null;
+                    }
+                }));
+            }
+            for (final Class cls : LATE) {
+                writers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        ValueObjectRegistry.register(cls);
+                        return null;
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+
+            // No registration may be lost to a concurrent one
+            for (Class cls : LATE) {
+                assertThat(ValueObjectRegistry.getClasses().contains(cls), is(true));
+            }
+            assertThat(ValueObjectRegistry.getClasses().size(), is(LATE.length + 2));
+            assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.crosstreelabs.late+json")),
+                    is(equalTo((Class)LateV4.class)));
+            assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.crosstreelabs.other+json")),
+                    is(equalTo((Class)OtherV4.class)));
+        }
+    }
+
+    @Version(version = 1, contentType = "application/vnd.crosstreelabs.late")
+    public static class LateV1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.crosstreelabs.late")
+    public static class LateV2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.crosstreelabs.late")
+    public static class LateV3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.crosstreelabs.late")
+    public static class LateV4 implements ValueObject {}
+    @Version(version = 1, contentType = "application/vnd.crosstreelabs.other")
+    public static class OtherV1 implements ValueObject {}
+    @Version(version = 2, contentType = "application/vnd.crosstreelabs.other")
+    public static class OtherV2 implements ValueObject {}
+    @Version(version = 3, contentType = "application/vnd.crosstreelabs.other")
+    public static class OtherV3 implements ValueObject {}
+    @Version(version = 4, contentType = "application/vnd.crosstreelabs.other")
+    public static class OtherV4 implements ValueObject {}
+}
@@ -15,9 +15,7 @@ package com.crosstreelabs.jaxrs.api.versioned;
 
 import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
 import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
-import java.lang.reflect.Field;
 import java.util.Arrays;
-import java.util.Set;
 import javax.ws.rs.core.MediaType;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
@@ -34,10 +32,7 @@ public class ValueObjectRegistryTest {
     
     @Before
     public void before() throws Exception {
-        Field field = ValueObjectRegistry.class.getDeclaredField("CLASSES");
-        field.setAccessible(true);
-        Set set = (Set)field.get(null);
-        set.clear();
+        ValueObjectRegistry.clear();
     }
     
     @Test
@@ -65,6 +60,43 @@ public class ValueObjectRegistryTest {
                 is(equalTo((Class)UserV2.class)));
     }
 
+    @Test
+    public void testFindForMediaTypeIgnoresCaseAndStructure() {
+        ValueObjectRegistry.register(UserV1.class, UserV2.class);
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/VND.crosstreelabs.User+xml;v=1")),
+                is(equalTo((Class)UserV1.class)));
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.crosstreelabs.user")),
+                is(equalTo((Class)UserV2.class)));
+    }
+
+    @Test
+    public void testFindForMediaTypeWithUnknownVersion() {
+        ValueObjectRegistry.register(UserV1.class, UserV2.class);
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.crosstreelabs.user+json;v=3")),
+                is(nullValue()));
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.crosstreelabs.book+json;v=1")),
+                is(nullValue()));
+    }
+
+    @Test
+    public void testFindForWildcardMediaType() {
+        ValueObjectRegistry.register(UserV1.class, UserV2.class);
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/*")),
+                is(equalTo((Class)UserV2.class)));
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("*/*;v=1")),
+                is(equalTo((Class)UserV1.class)));
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("text/*")),
+                is(nullValue()));
+    }
+
+    @Test
+    public void testClearRemovesIndexedClasses() {
+        ValueObjectRegistry.register(UserV1.class);
+        ValueObjectRegistry.clear();
+        assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.crosstreelabs.user+json;v=1")),
+                is(nullValue()));
+    }
+
     @Test
     public void testRegisterArray() {
         assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.crosstreelabs.user+json;v=1")),
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.exception;
+
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.util.ValidationUtils;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.validation.ConstraintViolationException;
+import javax.validation.ValidationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class ValidationExceptionMapperTest {
+    protected static final ValidationExceptionMapper UNDER_TEST = new ValidationExceptionMapper();
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final MediaType USER_SMILE_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+smile;v=1");
+    protected static final MediaType USER_CBOR_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+cbor;v=1");
+
+    @Test
+    public void testAllViolationsAreReported() {
+        Response response = UNDER_TEST.toResponse(invalidUser());
+        assertThat(response.getStatus(), is(400));
+        assertThat(response.getMetadata().getFirst("Content-Type"), is((Object)ValidationError.JSON_TYPE));
+        ValidationError error = (ValidationError)response.getEntity();
+        assertThat(error.message, is(equalTo(
+                "email may not be null, name may not be null, username may not be null")));
+        assertThat(error.violations, is(equalTo(Arrays.asList(
+                new ValidationError.Violation("email", "may not be null"),
+                new ValidationError.Violation("name", "may not be null"),
+                new ValidationError.Violation("username", "may not be null")))));
+    }
+
+    @Test
+    public void testRepeatedErrorsReuseEntity() {
+        Object first = UNDER_TEST.toResponse(invalidUser()).getEntity();
+        Object second = UNDER_TEST.toResponse(invalidUser()).getEntity();
+        assertThat(second, is(sameInstance(first)));
+
+        UserV1 user = new UserV1();
+        user.name = "Test User";
+        Object other = UNDER_TEST.toResponse(invalid(user)).getEntity();
+        assertThat(other, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedErrorsAreEvicted() {
+        ValidationExceptionMapper mapper = new ValidationExceptionMapper(60000, 2);
+        Object a = mapper.toResponse(new ValidationException("a")).getEntity();
+        Object b = mapper.toResponse(new ValidationException("b")).getEntity();
+        assertThat(mapper.toResponse(new ValidationException("a")).getEntity(), is(sameInstance(a)));
+        mapper.toResponse(new ValidationException("c"));
+        assertThat(mapper.toResponse(new ValidationException("a")).getEntity(), is(sameInstance(a)));
+        assertThat(mapper.toResponse(new ValidationException("b")).getEntity(), is(not(sameInstance(b))));
+    }
+
+    @Test
+    public void testPlainValidationException() {
+        Response response = UNDER_TEST.toResponse(new ValidationException("no validator"));
+        assertThat(response.getStatus(), is(400));
+        ValidationError error = (ValidationError)response.getEntity();
+        assertThat(error.message, is(equalTo("no validator")));
+        assertThat(error.violations.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testNegotiatesAcceptedStructure() {
+        HttpHeaders headers = mock(HttpHeaders.class);
+        doReturn(Arrays.asList(USER_CBOR_TYPE, USER_SMILE_TYPE)).when(headers).getAcceptableMediaTypes();
+        Providers providers = mock(Providers.class);
+        doReturn(mock(MessageBodyWriter.class)).when(providers).getMessageBodyWriter(ValidationError.class,
+                ValidationError.class, EMPTY_ANNOTATIONS, ValidationError.mediaType("smile"));
+        ValidationExceptionMapper mapper = new ValidationExceptionMapper();
+        mapper.setHttpHeaders(headers);
+        mapper.setProviders(providers);
+        assertThat(mapper.toResponse(invalidUser()).getMetadata().getFirst("Content-Type"),
+                is((Object)ValidationError.mediaType("smile")));
+
+        doReturn(Collections.singletonList(USER_CBOR_TYPE)).when(headers).getAcceptableMediaTypes();
+        assertThat(mapper.toResponse(invalidUser()).getMetadata().getFirst("Content-Type"),
+                is((Object)ValidationError.JSON_TYPE));
+    }
+
+    @Test
+    public void testRejectionsAreCounted() {
+        ValidationExceptionMapper mapper = new ValidationExceptionMapper(60000);
+        for (int i = 0; i < 10; i++) {
+            mapper.toResponse(invalidUser());
+        }
+        assertThat(mapper.getRejected(), is(10L));
+    }
+
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static ConstraintViolationException invalidUser() {
+        return invalid(new UserV1());
+    }
+    private static ConstraintViolationException invalid(final UserV1 user) {
+        try {
+            ValidationUtils.validate(user);
+        } catch (ConstraintViolationException ex) {
+            return ex;
+        }
+        fail("Expected the user to be invalid");
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.fixtures.vo;
+
+public final class Users {
+    private Users() {}
+    
+    public static UserV1 user(final String username) {
+        UserV1 user = new UserV1();
+        user.name = "Thomas Wilson";
+        user.username = username;
+        user.email = username+"@crosstreelabs.com";
+        return user;
+    }
+}
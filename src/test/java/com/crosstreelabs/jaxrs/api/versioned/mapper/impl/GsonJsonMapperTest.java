@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class GsonJsonMapperTest {
+    protected static final Gson GSON = new Gson();
+    protected static final String NAME = "Zoë <Thomas> Wilson";
+
+    private final GsonJsonMapper mapper = new GsonJsonMapper();
+
+    @Test
+    public void testConvertValue() {
+        UserV1 user = user();
+        UserV2 result = mapper.convertValue(user, UserV2.class);
+        assertThat(result.getName(), is(equalTo(NAME)));
+        assertThat(result.getUsername(), is(equalTo("thomas.wilson")));
+        assertThat(mapper.convertValue(null, UserV2.class), is(nullValue()));
+    }
+
+    @Test
+    public void ensureConvertValueSkipsNulls() {
+        Defaulted result = mapper.convertValue(new Defaulted(null), Defaulted.class);
+        assertThat(result.role, is(equalTo(Defaulted.ROLE)));
+    }
+
+    @Test
+    public void testWritesLikeGson() throws Exception {
+        UserV1 user = user();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        mapper.writeTo(user, os);
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8), is(equalTo(GSON.toJson(user))));
+        assertThat(mapper.asBytes(user), is(equalTo(GSON.toJson(user).getBytes(StandardCharsets.UTF_8))));
+        assertThat(new String(mapper.asBytes(null), StandardCharsets.UTF_8), is(equalTo("null")));
+    }
+
+    @Test
+    public void testReadsUtf8() throws Exception {
+        byte[] bytes = ("{\"name\":\""+NAME+"\"}").getBytes(StandardCharsets.UTF_8);
+        UserV1 result = mapper.readValue(new ByteArrayInputStream(bytes), UserV1.class);
+        assertThat(result.name, is(equalTo(NAME)));
+    }
+
+    @Test
+    public void testEmptyBodyReadsAsNull() throws Exception {
+        assertThat(mapper.readValue(new ByteArrayInputStream(new byte[0]), UserV1.class), is(nullValue()));
+    }
+
+    @Test(expected = JsonIOException.class)
+    public void ensureTrailingContentIsRejected() throws Exception {
+        byte[] bytes = "{\"name\":\"Thomas\"} {}".getBytes(StandardCharsets.UTF_8);
+        mapper.readValue(new ByteArrayInputStream(bytes), UserV1.class);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void ensureMismatchedTypeIsSyntaxError() throws Exception {
+        byte[] bytes = "[\"Thomas\"]".getBytes(StandardCharsets.UTF_8);
+        mapper.readValue(new ByteArrayInputStream(bytes), UserV1.class);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void ensureMalformedJsonIsSyntaxError() throws Exception {
+        byte[] bytes = "{\"name\" \"Thomas\"}".getBytes(StandardCharsets.UTF_8);
+        mapper.readValue(new ByteArrayInputStream(bytes), UserV1.class);
+    }
+
+    protected static UserV1 user() {
+        UserV1 user = new UserV1();
+        user.name = NAME;
+        user.username = "thomas.wilson";
+        return user;
+    }
+
+    protected static class Defaulted {
+        protected static final String ROLE = "member";
+        String role = ROLE;
+
+        Defaulted() {}
+        Defaulted(final String role) {
+            this.role = role;
+        }
+    }
+}
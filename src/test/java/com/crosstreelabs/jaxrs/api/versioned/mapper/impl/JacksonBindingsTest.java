@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.mapper.impl;
+
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class JacksonBindingsTest {
+    protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testReadersAndWritersAreCachedPerClass() {
+        JacksonBindings bindings = new JacksonBindings(MAPPER);
+        assertThat(bindings.reader(UserV1.class), is(sameInstance(bindings.reader(UserV1.class))));
+        assertThat(bindings.writer(new UserV1()), is(sameInstance(bindings.writer(new UserV1()))));
+        assertThat(bindings.writer(new UserV1()), is(not(sameInstance(bindings.writer("")))));
+        assertThat(bindings.writer(null), is(sameInstance(bindings.writer(null))));
+    }
+
+    @Test
+    public void testBindsLikeTheMapper() throws Exception {
+        JacksonBindings bindings = new JacksonBindings(MAPPER);
+        UserV1 user = new UserV1();
+        user.name = "Thomas Wilson";
+        user.username = "thomas.wilson";
+        byte[] bytes = bindings.writer(user).writeValueAsBytes(user);
+        assertThat(new String(bytes, StandardCharsets.UTF_8),
+                is(equalTo(MAPPER.writeValueAsString(user))));
+        UserV1 result = bindings.reader(UserV1.class).readValue(new ByteArrayInputStream(bytes));
+        assertThat(result.username, is(equalTo("thomas.wilson")));
+        assertThat(bindings.writer(null).writeValueAsString(null), is(equalTo("null")));
+    }
+}
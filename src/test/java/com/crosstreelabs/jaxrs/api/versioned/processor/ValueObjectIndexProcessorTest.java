@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.processor;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import javax.ws.rs.core.MediaType;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ValueObjectIndexProcessorTest {
+    protected static final String SAMPLE = "package sample;\n"
+            + "import com.crosstreelabs.jaxrs.api.versioned.ValueObject;\n"
+            + "import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;\n"
+            + "@Version(version = 2, contentType = {\"application/vnd.sample\", \"application/vnd.sample.alt\"}, models = Model.class)\n"
+            + "public class Sample implements ValueObject {\n"
+            + "    @Version(version = 1, contentType = \"application/vnd.sample\")\n"
+            + "    public static class Nested implements ValueObject {}\n"
+            + "    @Version(version = 3, contentType = \"application/vnd.sample\")\n"
+            + "    public abstract static class Abstract implements ValueObject {}\n"
+            + "    @Version(version = 4, contentType = \"application/vnd.sample\")\n"
+            + "    public static class NotAValueObject {}\n"
+            + "    @Version(version = 5, contentType = \"application/vnd.sample\")\n"
+            + "    public class Inner implements ValueObject {}\n"
+            + "}\n";
+    protected static final String MODEL = "package sample;\n"
+            + "public class Model {}\n";
+    protected static final String OTHER = "package sample;\n"
+            + "import com.crosstreelabs.jaxrs.api.versioned.ValueObject;\n"
+            + "import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;\n"
+            + "@Version(version = 1, contentType = \"application/vnd.other\")\n"
+            + "public class Other implements ValueObject {}\n";
+    
+    private Path dir;
+    
+    @Before
+    public void before() throws IOException {
+        dir = Files.createTempDirectory("value-object-index");
+        ValueObjectRegistry.clear();
+    }
+    @After
+    public void after() throws IOException {
+        ValueObjectRegistry.clear();
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file,
+                    final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult postVisitDirectory(final Path d,
+                    final IOException ex) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    @Test
+    public void testGeneratesIndex() throws Exception {
+        compile();
+        List<String> lines = Files.readAllLines(dir.resolve(ValueObjectRegistry.INDEX_RESOURCE),
+                StandardCharsets.UTF_8);
+        assertThat(lines, is(equalTo(Arrays.asList(
+                "sample.Sample\t2\tapplication/vnd.sample,application/vnd.sample.alt",
+                "sample.Sample$Nested\t1\tapplication/vnd.sample"))));
+    }
+    
+    @Test
+    public void testIncrementalCompilationKeepsOnlyValidEntries() throws Exception {
+        compile(source("Other.java", OTHER));
+        Path index = dir.resolve(ValueObjectRegistry.INDEX_RESOURCE);
+        List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+        // A value object that has since been deleted, and one whose @Version
+        // has since been removed
+        lines.add("sample.Deleted\t1\tapplication/vnd.deleted");
+        lines.add("sample.Model\t1\tapplication/vnd.model");
+        Files.write(index, lines, StandardCharsets.UTF_8);
+        
+        compile(source("Sample.java", SAMPLE), source("Model.java", MODEL));
+        assertThat(Files.readAllLines(index, StandardCharsets.UTF_8), is(equalTo(Arrays.asList(
+                "sample.Other\t1\tapplication/vnd.other",
+                "sample.Sample\t2\tapplication/vnd.sample,application/vnd.sample.alt",
+                "sample.Sample$Nested\t1\tapplication/vnd.sample"))));
+    }
+    
+    @Test
+    public void testRegisterIndexed() throws Exception {
+        compile();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()},
+                getClass().getClassLoader())) {
+            ValueObjectRegistry.registerIndexed(loader);
+            assertThat(ValueObjectRegistry.getClasses().size(), is(2));
+            assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.sample+json")).getName(),
+                    is(equalTo("sample.Sample")));
+            assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.sample+json;v=1")).getName(),
+                    is(equalTo("sample.Sample$Nested")));
+        }
+    }
+    
+    @Test
+    public void testRegisterIndexedUsesRecordedMetadata() throws Exception {
+        compile();
+        // Indexed under what the index records, not what the annotation says
+        Files.write(dir.resolve(ValueObjectRegistry.INDEX_RESOURCE), Arrays.asList(
+                "sample.Sample$Nested\t1\tapplication/vnd.recorded"), StandardCharsets.UTF_8);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()},
+                getClass().getClassLoader())) {
+            ValueObjectRegistry.registerIndexed(loader);
+            assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.recorded+json")).getName(),
+                    is(equalTo("sample.Sample$Nested")));
+            assertThat(ValueObjectRegistry.findForMediaType(MediaType.valueOf("application/vnd.sample+json")),
+                    is(nullValue()));
+        }
+    }
+    
+    protected void compile() throws IOException {
+        compile(source("Sample.java", SAMPLE), source("Model.java", MODEL));
+    }
+    protected void compile(final File... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            Boolean success = compiler.getTask(null, fm, new DiagnosticCollector<JavaFileObject>(),
+                    Arrays.asList("-classpath", System.getProperty("java.class.path")+File.pathSeparator+dir,
+                            "-d", dir.toString(),
+                            "-processor", ValueObjectIndexProcessor.class.getName()),
+                    null,
+                    fm.getJavaFileObjects(sources)).call();
+            assertThat(success, is(true));
+        }
+    }
+    protected File source(final String name, final String source) throws IOException {
+        Path file = Files.createDirectories(dir.resolve("sample")).resolve(name);
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
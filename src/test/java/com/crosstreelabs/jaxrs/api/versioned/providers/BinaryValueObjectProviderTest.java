@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import static com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.Users.user;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayReadingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2CborMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2SmileMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.MessagePackMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class BinaryValueObjectProviderTest {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+
+    @BeforeClass
+    public static void beforeClass() {
+        ValueObjectRegistry.clear();
+        ValueObjectRegistry.register(UserV1.class, UserV2.class);
+    }
+    @AfterClass
+    public static void afterClass() {
+        ValueObjectRegistry.clear();
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+            { new Jackson2CborMapper(), "cbor" },
+            { new Jackson2SmileMapper(), "smile" },
+            { new MessagePackMapper(), "msgpack" }
+        });
+    }
+
+    private final Mapper mapper;
+    private final StandardValueObjectProvider underTest;
+    private final MediaType user1Type;
+    private final MediaType user2Type;
+
+    public BinaryValueObjectProviderTest(final Mapper mapper,
+            final String structure) {
+        this.mapper = mapper;
+        this.underTest = new StandardValueObjectProvider(mapper);
+        this.user1Type = MediaType.valueOf(UserV1.TYPE_STR+"+"+structure+";v=1");
+        this.user2Type = MediaType.valueOf(UserV2.TYPE_STR+"+"+structure+";v=2");
+    }
+
+    @Test
+    public void testSupportsOnlyItsStructure() {
+        assertThat(underTest.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, user1Type),
+                is(true));
+        assertThat(underTest.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, MediaType.valueOf(UserV1.TYPE_STR+"+json;v=1")),
+                is(false));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        UserV1 user = user("thomas.wilson");
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        underTest.writeTo(user, UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, user1Type, headers, os);
+        assertThat(headers.getFirst("Content-Type"), is(equalTo((Object)user1Type.toString())));
+        assertThat(os.toByteArray(), is(equalTo(mapper.asBytes(user))));
+
+        ValueObject result = underTest.readFrom((Class)ValueObject.class, ValueObject.class, EMPTY_ANNOTATIONS, user1Type,
+                new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(os.toByteArray()));
+        assertThat(result, is(instanceOf(UserV1.class)));
+        assertThat(((UserV1)result).name, is(equalTo(user.name)));
+        assertThat(((UserV1)result).username, is(equalTo(user.username)));
+        assertThat(((UserV1)result).email, is(equalTo(user.email)));
+    }
+
+    @Test
+    public void testRoundTripThroughConsumer() throws Exception {
+        byte[] body = mapper.asBytes(user("thomas.wilson"));
+        ValueObject result = underTest.readFrom((Class)ValueObject.class, ValueObject.class, EMPTY_ANNOTATIONS, user2Type,
+                new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(body));
+        assertThat(result, is(instanceOf(UserV2.class)));
+        assertThat(((UserV2)result).getUsername(), is(equalTo("thomas.wilson")));
+        assertThat(((UserV2)result).getEmail(), is(equalTo("thomas.wilson@crosstreelabs.com")));
+    }
+
+    @Test
+    public void testCollectionWrite() throws Exception {
+        List<UserV1> users = Arrays.asList(user("first"), user("second"));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ValueObjectCollectionProvider(mapper).writeTo(users, ArrayList.class, Fields.class.getDeclaredField("list").getGenericType(),
+                EMPTY_ANNOTATIONS, user1Type, new MultivaluedHashMap<String, Object>(), os);
+        UserV1[] result = mapper.readValue(new ByteArrayInputStream(os.toByteArray()), UserV1[].class);
+        assertThat(result.length, is(2));
+        assertThat(result[0].username, is(equalTo("first")));
+        assertThat(result[1].username, is(equalTo("second")));
+    }
+
+    @Test
+    public void testCollectionRoundTrip() throws Exception {
+        assumeThat(mapper, is(instanceOf(ArrayReadingMapper.class)));
+        List<UserV1> users = Arrays.asList(user("first"), user("second"));
+        ValueObjectCollectionProvider provider = new ValueObjectCollectionProvider(mapper);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        provider.writeTo(users, ArrayList.class, Fields.class.getDeclaredField("list").getGenericType(),
+                EMPTY_ANNOTATIONS, user1Type, new MultivaluedHashMap<String, Object>(), os);
+
+        Iterator<?> it = (Iterator<?>)provider.readFrom((Class)Iterator.class, Fields.class.getDeclaredField("iterator").getGenericType(),
+                EMPTY_ANNOTATIONS, user1Type, new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(os.toByteArray()));
+        assertThat(((UserV1)it.next()).username, is(equalTo("first")));
+        assertThat(((UserV1)it.next()).username, is(equalTo("second")));
+        assertThat(it.hasNext(), is(false));
+    }
+
+    protected static class Fields {
+        List<UserV1> list;
+        Iterator<UserV1> iterator;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.NegotiationCache;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.GsonJsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2CborMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2SmileMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import javax.ws.rs.NotAcceptableException;
+import javax.ws.rs.NotSupportedException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CompositeValueObjectProviderTest {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final MediaType USER1_JSON_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json;v=1");
+    protected static final MediaType USER1_SMILE_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+smile;v=1");
+    protected static final MediaType USER1_YAML_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+yaml;v=1");
+    protected static final MediaType USER2_CBOR_TYPE = MediaType.valueOf(UserV2.TYPE_STR+"+cbor;v=2");
+    protected static final CompositeValueObjectProvider UNDER_TEST = new CompositeValueObjectProvider(
+            new Jackson2JsonMapper(), new Jackson2SmileMapper(), new Jackson2CborMapper());
+
+    @BeforeClass
+    public static void beforeClass() {
+        ValueObjectRegistry.clear();
+        ValueObjectRegistry.register(UserV1.class, UserV2.class);
+    }
+    @AfterClass
+    public static void afterClass() {
+        ValueObjectRegistry.clear();
+    }
+
+    @Test
+    public void testBuildsLookupTable() {
+        assertThat(UNDER_TEST.getProviders().size(), is(3));
+        assertThat(UNDER_TEST.getProviders().containsKey("json"), is(true));
+        assertThat(UNDER_TEST.getProviders().containsKey("smile"), is(true));
+        assertThat(UNDER_TEST.getProviders().containsKey("cbor"), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ensureStructuresMustBeUnique() {
+        new CompositeValueObjectProvider(new Jackson2JsonMapper(), new GsonJsonMapper());
+    }
+
+    @Test
+    public void testDispatchesOnStructure() {
+        assertThat(UNDER_TEST.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_JSON_TYPE),
+                is(true));
+        assertThat(UNDER_TEST.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_SMILE_TYPE),
+                is(true));
+        assertThat(UNDER_TEST.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_YAML_TYPE),
+                is(false));
+        assertThat(UNDER_TEST.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE),
+                is(false));
+        assertThat(UNDER_TEST.isWriteable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_SMILE_TYPE),
+                is(true));
+        assertThat(UNDER_TEST.isWriteable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_YAML_TYPE),
+                is(false));
+    }
+
+    @Test
+    public void testWritesWithNegotiatedMapper() throws Exception {
+        UserV1 user = new UserV1();
+        user.name = "Thomas Wilson";
+        user.username = "thomas.wilson";
+        user.email = "thomas.wilson@crosstreelabs.com";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        UNDER_TEST.writeTo(user, UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_SMILE_TYPE, headers, os);
+        assertThat(os.toByteArray(), is(equalTo(new Jackson2SmileMapper().asBytes(user))));
+        assertThat(headers.getFirst("Content-Type"), is(equalTo((Object)USER1_SMILE_TYPE.toString())));
+    }
+
+    @Test
+    public void testReadsWithNegotiatedMapper() throws Exception {
+        UserV1 user = new UserV1();
+        user.username = "thomas.wilson";
+        byte[] body = new Jackson2CborMapper().asBytes(user);
+        ValueObject result = UNDER_TEST.readFrom((Class)ValueObject.class, ValueObject.class, EMPTY_ANNOTATIONS, USER2_CBOR_TYPE,
+                new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(body));
+        assertThat(result, is(instanceOf(UserV2.class)));
+        assertThat(((UserV2)result).getUsername(), is(equalTo("thomas.wilson")));
+    }
+
+    @Test
+    public void ensureNegotiatesOncePerRequest() throws Exception {
+        NegotiationCache cache = ValueObjectRegistry.getNegotiationCache();
+        UserV1 user = new UserV1();
+        user.username = "thomas.wilson";
+        byte[] body = new Jackson2CborMapper().asBytes(user);
+        long lookups = cache.getHits() + cache.getMisses();
+        UNDER_TEST.readFrom((Class)ValueObject.class, ValueObject.class, EMPTY_ANNOTATIONS, USER2_CBOR_TYPE,
+                new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(body));
+        assertThat(cache.getHits() + cache.getMisses(), is(lookups + 1));
+        UNDER_TEST.writeTo(user, UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_SMILE_TYPE,
+                new MultivaluedHashMap<String, Object>(), new ByteArrayOutputStream());
+        assertThat(cache.getHits() + cache.getMisses(), is(lookups + 2));
+    }
+
+    @Test(expected = NotSupportedException.class)
+    public void ensureReadingUnknownStructureThrowsException() throws Exception {
+        UNDER_TEST.readFrom((Class)ValueObject.class, ValueObject.class, EMPTY_ANNOTATIONS, USER1_YAML_TYPE,
+                new MultivaluedHashMap<String, String>(), new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Test(expected = NotAcceptableException.class)
+    public void ensureWritingUnknownStructureThrowsException() throws Exception {
+        UNDER_TEST.writeTo(new UserV1(), UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_YAML_TYPE,
+                new MultivaluedHashMap<String, Object>(), new ByteArrayOutputStream());
+    }
+}
@@ -98,6 +98,16 @@ public class HierarchicalMapFormUrlEncodedProviderTest {
         assertThat(result, is(Collections.singletonMap("aŒ", (Object)"Š")));
     }
 
+    @Test
+    public void ensureQueryParametersAreNotDecodedTwice() throws Exception {
+        setQueryString(new HashMap<String, String[]>(){{
+            put("q", new String[]{"100%"});
+            put("x[y]", new String[]{"z"});
+        }});
+        Map<String, Object> result = UNDER_TEST.readFrom(Map.class, Map.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_FORM_URLENCODED_TYPE, new MultivaluedStringMap(), qs("a=%25"));
+        assertThat(result, is(GSON.fromJson("{\"a\":\"%\",\"q\":\"100%\",\"x\":{\"y\":\"z\"}}", Map.class)));
+    }
+
     @Test
     public void testIsWriteable() {
         assertThat(UNDER_TEST.isWriteable(Map.class, Map.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_FORM_URLENCODED_TYPE),
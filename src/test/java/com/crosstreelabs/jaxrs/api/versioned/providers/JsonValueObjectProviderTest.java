@@ -25,6 +25,7 @@ import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
 import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.GsonJsonMapper;
 import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson1JsonMapper;
 import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
@@ -34,6 +35,7 @@ import java.util.Collections;
 import java.util.List;
 import javax.validation.Valid;
 import javax.validation.ValidationException;
+import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.Encoded;
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.NotAcceptableException;
@@ -62,6 +64,7 @@ public class JsonValueObjectProviderTest {
     protected static final MediaType USER2_TYPE = MediaType.valueOf(UserV2.TYPE_STR+"+json;v=2");
     protected static final MediaType BOOK1_TYPE = MediaType.valueOf(BookVO.TYPE_STR+"+json;v=1");
     protected static final MediaType BOOK1_XML_TYPE = MediaType.valueOf(BookVO.TYPE_STR+"+xml;v=1");
+    protected static final RequestLimits DEFAULT_LIMITS = RequestLimits.getDefault();
     
     static {
         Encoded e = mock(Encoded.class);
@@ -103,10 +106,8 @@ public class JsonValueObjectProviderTest {
                 is(true));
         assertThat(underTest.isReadable(ResourceVO.class, ResourceVO.class, EMPTY_ANNOTATIONS, BOOK1_XML_TYPE),
                 is(false));
-        try {
-            underTest.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE);
-            fail("Test should have thrown NotSupportedException");
-        } catch (NotSupportedException ex) {}
+        assertThat(underTest.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE),
+                is(false));
         assertThat(underTest.isReadable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_TYPE),
                 is(true));
     }
@@ -153,6 +154,20 @@ public class JsonValueObjectProviderTest {
         assertThat(((UserV1)result).email, is(equalTo("thomas.wilson@crosstreelabs.com")));
     }
     
+    @Test
+    public void ensureBodySizeIsLimited() throws Exception {
+        RequestLimits limits = new RequestLimits(16, 10, 10, 10);
+        RequestLimits.setDefault(limits);
+        try {
+            underTest.readFrom((Class)UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_TYPE, new MultivaluedHashMap<String, String>(), getResource("unit/representations/user.v1.json"));
+            fail();
+        } catch (ClientErrorException ex) {
+            assertThat(limits.getBodySizeBreaches(), is(1L));
+        } finally {
+            RequestLimits.setDefault(DEFAULT_LIMITS);
+        }
+    }
+    
     @Test(expected = NotSupportedException.class)
     public void testReadFromInvalidContentTypeThrowsException() throws Exception {
         underTest.readFrom((Class)Object.class, Object.class, ENCODED, MediaType.APPLICATION_JSON_TYPE, null, null);
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.providers.ModelMessageBodyProviderTest.AccountModel;
+import com.crosstreelabs.jaxrs.api.versioned.providers.ModelMessageBodyProviderTest.AccountVO;
+import com.crosstreelabs.jaxrs.api.versioned.providers.ModelMessageBodyProviderTest.ProfileModel;
+import com.crosstreelabs.jaxrs.api.versioned.providers.ModelMessageBodyProviderTest.ProfileVO;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class ModelBindingTest {
+    
+    @Test
+    public void testHasModel() {
+        assertThat(ModelBinding.of(AccountVO.class).hasModel(AccountModel.class), is(true));
+        assertThat(ModelBinding.of(AccountVO.class).hasModel(ProfileModel.class), is(false));
+        assertThat(ModelBinding.of(String.class).hasModel(AccountModel.class), is(false));
+    }
+    
+    @Test
+    public void testConsumer() {
+        ModelBinding binding = ModelBinding.of(AccountVO.class);
+        assertThat(binding, is(sameInstance(ModelBinding.of(AccountVO.class))));
+        assertThat(binding.consumer(AccountModel.class), is(notNullValue()));
+        assertThat(binding.consumer(AccountModel.class), is(sameInstance(binding.consumer(AccountModel.class))));
+        assertThat(binding.consumer(ProfileModel.class), is(nullValue()));
+        assertThat(ModelBinding.of(ProfileVO.class).consumer(ProfileModel.class), is(nullValue()));
+    }
+}
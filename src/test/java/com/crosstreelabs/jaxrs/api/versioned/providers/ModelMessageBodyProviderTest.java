@@ -19,6 +19,7 @@ import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
 import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
 import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
 import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
@@ -45,6 +46,8 @@ public class ModelMessageBodyProviderTest {
         ValueObjectRegistry.clear();
         ValueObjectRegistry.register(UserVO.class);
         ValueObjectRegistry.register(ClientVO.class);
+        ValueObjectRegistry.register(AccountVO.class);
+        ValueObjectRegistry.register(ProfileVO.class);
     }
     
     @Test
@@ -58,14 +61,53 @@ public class ModelMessageBodyProviderTest {
                 is(equalTo(false)));
     }
     @Test
+    public void ensureCannotWriteUnknownMediaType() {
+        assertThat(UNDER_TEST.isWriteable(UserModel.class, UserModel.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE),
+                is(equalTo(false)));
+    }
+    @Test
     public void ensureCanWrite() {
         assertThat(UNDER_TEST.isWriteable(UserModel.class, UserModel.class, EMPTY_ANNOTATIONS, MediaType.valueOf("application/vnd.crosstreelabs.user+json;v=1")),
                 is(equalTo(true)));
     }
     
+    @Test
+    public void ensureWritesThroughConsume() throws Exception {
+        AccountModel model = new AccountModel();
+        model.name = "twilson";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        UNDER_TEST.writeTo(model, AccountModel.class, AccountModel.class, EMPTY_ANNOTATIONS, MediaType.valueOf("application/vnd.crosstreelabs.account+json;v=1"), null, os);
+        assertThat(os.toString("UTF-8"), is(equalTo("{\"name\":\"TWILSON\"}")));
+    }
+    @Test
+    public void ensureWritesByConversionWithoutConsume() throws Exception {
+        ProfileModel model = new ProfileModel();
+        model.name = "twilson";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        UNDER_TEST.writeTo(model, ProfileModel.class, ProfileModel.class, EMPTY_ANNOTATIONS, MediaType.valueOf("application/vnd.crosstreelabs.profile+json;v=1"), null, os);
+        assertThat(os.toString("UTF-8"), is(equalTo("{\"name\":\"twilson\"}")));
+    }
+    
     @Version(version = 1, models = UserModel.class, contentType = "application/vnd.crosstreelabs.user")
     public static class UserVO implements ValueObject {}
     public static class UserModel {}
     @Version(version = 1, contentType = "application/vnd.crosstreelabs.client")
     public static class ClientVO implements ValueObject {}
+    @Version(version = 1, models = AccountModel.class, contentType = "application/vnd.crosstreelabs.account")
+    public static class AccountVO implements ValueObject {
+        public String name;
+        public void consume(final AccountModel model) {
+            name = model.name.toUpperCase();
+        }
+    }
+    public static class AccountModel {
+        public String name;
+    }
+    @Version(version = 1, models = ProfileModel.class, contentType = "application/vnd.crosstreelabs.profile")
+    public static class ProfileVO implements ValueObject {
+        public String name;
+    }
+    public static class ProfileModel {
+        public String name;
+    }
 }
\ No newline at end of file
@@ -13,6 +13,7 @@
  */
 package com.crosstreelabs.jaxrs.api.versioned.providers;
 
+import com.crosstreelabs.jaxrs.api.versioned.util.RequestLimits;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -25,6 +26,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Encoded;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
@@ -36,6 +38,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.*;
 import org.junit.After;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 import static org.mockito.Mockito.*;
 
@@ -43,6 +46,7 @@ public class MultivaluedMapFormUrlEncodedProviderTest {
     protected static final MultivaluedMapFormUrlEncodedProvider UNDER_TEST
             = new MultivaluedMapFormUrlEncodedProvider();
     protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final RequestLimits DEFAULT_LIMITS = RequestLimits.getDefault();
     protected static final Annotation[] ENCODED;
     static {
         Encoded e = mock(Encoded.class);
@@ -100,6 +104,35 @@ public class MultivaluedMapFormUrlEncodedProviderTest {
         assertThat(result.getFirst("aŒ"), is(equalTo("Š")));
     }
 
+    @Test
+    public void ensureQueryParametersAreNotDecodedTwice() throws Exception {
+        setQueryString(new HashMap<String, String[]>(){{
+            put("q", new String[]{"100%"});
+            put("x[y]", new String[]{"z"});
+        }});
+        MultivaluedMap<String, String> result = UNDER_TEST.readFrom(MultivaluedMap.class, MultivaluedMap.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_FORM_URLENCODED_TYPE, new MultivaluedStringMap(), qs("a=%25"));
+        assertThat(result.getFirst("a"), is(equalTo("%")));
+        assertThat(result.getFirst("q"), is(equalTo("100%")));
+        assertThat(result.getFirst("x[y]"), is(equalTo("z")));
+    }
+
+    @Test
+    public void ensureQueryParametersAreLimited() throws Exception {
+        RequestLimits limits = new RequestLimits(1024, 2, 10, 10);
+        RequestLimits.setDefault(limits);
+        setQueryString(new HashMap<String, String[]>(){{
+            put("q", new String[]{"1", "2", "3"});
+        }});
+        try {
+            UNDER_TEST.readFrom(MultivaluedMap.class, MultivaluedMap.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_FORM_URLENCODED_TYPE, new MultivaluedStringMap(), qs("a=1"));
+            fail("Test should have failed on the third query parameter");
+        } catch (BadRequestException ex) {
+            assertThat(limits.getParameterCountBreaches(), is(1L));
+        } finally {
+            RequestLimits.setDefault(DEFAULT_LIMITS);
+        }
+    }
+
     @Test
     public void testIsWriteable() {
         assertThat(UNDER_TEST.isWriteable(MultivaluedMap.class, MultivaluedMap.class, EMPTY_ANNOTATIONS, MediaType.APPLICATION_FORM_URLENCODED_TYPE),
@@ -0,0 +1,236 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.exception.ValidationError;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class RepresentationCacheTest {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final MediaType CACHED_TYPE = MediaType.valueOf(CachedVO.TYPE_STR+"+json;v=1");
+    protected static final MediaType USER1_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json;v=1");
+
+    private StandardValueObjectProvider underTest;
+    private RepresentationCache cache;
+
+    @Before
+    public void before() {
+        underTest = new StandardValueObjectProvider(new Jackson2JsonMapper());
+        cache = underTest.getRepresentationCache();
+    }
+
+    @Test
+    public void testRepeatedWritesAreServedFromCache() throws Exception {
+        CachedVO vo = new CachedVO("catalog");
+        MultivaluedMap<String, Object> first = new MultivaluedHashMap<>();
+        MultivaluedMap<String, Object> second = new MultivaluedHashMap<>();
+        String firstBody = write(vo, CACHED_TYPE, first);
+        String secondBody = write(vo, CACHED_TYPE, second);
+
+        assertThat(secondBody, is(equalTo(firstBody)));
+        assertThat(firstBody, is(equalTo("{\"name\":\"catalog\"}")));
+        assertThat(second.getFirst(HttpHeaders.ETAG), is(sameInstance(first.getFirst(HttpHeaders.ETAG))));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void testEqualValueObjectsAreCachedSeparately() throws Exception {
+        MultivaluedMap<String, Object> first = new MultivaluedHashMap<>();
+        MultivaluedMap<String, Object> second = new MultivaluedHashMap<>();
+        write(new CachedVO("catalog"), CACHED_TYPE, first);
+        write(new CachedVO("catalog"), CACHED_TYPE, second);
+
+        assertThat(cache.size(), is(2));
+        // The same bytes always carry the same tag
+        assertThat(second.getFirst(HttpHeaders.ETAG).toString(),
+                is(equalTo(first.getFirst(HttpHeaders.ETAG).toString())));
+    }
+
+    @Test
+    public void testUncacheableValueObjectsBypassCache() throws Exception {
+        UserV1 user = new UserV1();
+        user.name = "Test User";
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        write(user, USER1_TYPE, headers);
+
+        assertThat(headers.containsKey(HttpHeaders.ETAG), is(false));
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getMisses(), is(0L));
+    }
+
+    @Test
+    public void testResourceETagIsKept() throws Exception {
+        EntityTag tag = new EntityTag("resource");
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.putSingle(HttpHeaders.ETAG, tag);
+        underTest.setRequest(matchingRequest("GET", tag));
+
+        assertThat(write(new CachedVO("catalog"), CACHED_TYPE, headers),
+                is(equalTo("{\"name\":\"catalog\"}")));
+        assertThat(headers.getFirst(HttpHeaders.ETAG), is(sameInstance((Object)tag)));
+    }
+
+    @Test
+    public void testMatchingGetIsNotModified() throws Exception {
+        CachedVO vo = new CachedVO("catalog");
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        write(vo, CACHED_TYPE, headers);
+        underTest.setRequest(matchingRequest("GET", (EntityTag)headers.getFirst(HttpHeaders.ETAG)));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            underTest.writeTo(vo, CachedVO.class, CachedVO.class,
+                    EMPTY_ANNOTATIONS, CACHED_TYPE, new MultivaluedHashMap<String, Object>(), os);
+            fail("Expected the response to be replaced");
+        } catch (WebApplicationException ex) {
+            assertThat(ex.getResponse().getStatus(), is(304));
+            assertThat(os.size(), is(0));
+        }
+    }
+
+    @Test
+    public void testPreconditionsOnlyApplyToGetAndHead() throws Exception {
+        CachedVO vo = new CachedVO("catalog");
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        write(vo, CACHED_TYPE, headers);
+        underTest.setRequest(matchingRequest("PUT", (EntityTag)headers.getFirst(HttpHeaders.ETAG)));
+        assertThat(write(vo, CACHED_TYPE, new MultivaluedHashMap<String, Object>()),
+                is(equalTo("{\"name\":\"catalog\"}")));
+    }
+
+    @Test
+    public void testUntaggedValueObjectsShareBytesWithoutETag() throws Exception {
+        ValidationError error = new ValidationError("name may not be null",
+                Collections.singletonList(new ValidationError.Violation("name", "may not be null")));
+        MultivaluedMap<String, Object> first = new MultivaluedHashMap<>();
+        MultivaluedMap<String, Object> second = new MultivaluedHashMap<>();
+        String firstBody = write(error, ValidationError.JSON_TYPE, first);
+        underTest.setRequest(matchingRequest("GET", null));
+        String secondBody = write(error, ValidationError.JSON_TYPE, second);
+
+        assertThat(secondBody, is(equalTo(firstBody)));
+        assertThat(first.containsKey(HttpHeaders.ETAG), is(false));
+        assertThat(second.containsKey(HttpHeaders.ETAG), is(false));
+        assertThat(cache.getHits(), is(1L));
+    }
+
+    @Test
+    public void testCacheCanBeDisabled() throws Exception {
+        underTest = new StandardValueObjectProvider(new Jackson2JsonMapper(), null);
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        write(new CachedVO("catalog"), CACHED_TYPE, headers);
+        assertThat(headers.containsKey(HttpHeaders.ETAG), is(false));
+        assertThat(underTest.getRepresentationCache(), is(nullValue()));
+    }
+
+    @Test
+    public void testMediaTypesAreCachedSeparately() {
+        RepresentationCache small = new RepresentationCache(4096);
+        Object vo = new Object();
+        small.put(vo, CACHED_TYPE, new byte[]{1});
+        small.put(vo, MediaType.APPLICATION_JSON_TYPE, new byte[]{2});
+        assertThat(small.get(vo, CACHED_TYPE).bytes[0], is((byte)1));
+        assertThat(small.get(vo, MediaType.APPLICATION_JSON_TYPE).bytes[0], is((byte)2));
+        assertThat(small.get(new Object(), CACHED_TYPE), is(nullValue()));
+        assertThat(small.get(vo, CACHED_TYPE).entityTag.getValue(),
+                is(not(equalTo(small.get(vo, MediaType.APPLICATION_JSON_TYPE).entityTag.getValue()))));
+    }
+
+    @Test
+    public void testCacheIsBoundedByBytes() {
+        RepresentationCache small = new RepresentationCache(2048);
+        Object hot = new Object();
+        small.put(hot, CACHED_TYPE, new byte[256]);
+        Object[] held = new Object[1000];
+        for (int i = 0; i < held.length; i++) {
+            // Keep the hot entry referenced while others flood in
+            small.get(hot, CACHED_TYPE);
+            held[i] = new Object();
+            small.put(held[i], CACHED_TYPE, new byte[256]);
+            assertThat(small.getWeight(), is(lessThanOrEqualTo(2048L)));
+        }
+        assertThat(small.getEvictions(), is(996L));
+        assertThat(small.get(hot, CACHED_TYPE).bytes.length, is(256));
+    }
+
+    @Test
+    public void testOversizedRepresentationsAreNotCached() {
+        RepresentationCache small = new RepresentationCache(1024);
+        Object vo = new Object();
+        RepresentationCache.Representation representation = small.put(vo, CACHED_TYPE, new byte[2048]);
+        assertThat(representation.bytes.length, is(2048));
+        assertThat(small.size(), is(0));
+        assertThat(small.getWeight(), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ensureMaxBytesMustBePositive() {
+        new RepresentationCache(0);
+    }
+
+    //~ Internal helpers ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private String write(final ValueObject vo, final MediaType mediaType,
+            final MultivaluedMap<String, Object> headers) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        underTest.writeTo(vo, vo.getClass(), vo.getClass(), EMPTY_ANNOTATIONS,
+                mediaType, headers, os);
+        return new String(os.toByteArray(), "UTF-8");
+    }
+    private Request matchingRequest(final String method, final EntityTag tag) {
+        Request request = mock(Request.class);
+        doReturn(method).when(request).getMethod();
+        doReturn(Response.notModified(tag)).when(request).evaluatePreconditions(tag);
+        return request;
+    }
+
+    @Version(version = 1, contentType = CachedVO.TYPE_STR, cacheable = true)
+    public static class CachedVO implements ValueObject {
+        public static final String TYPE_STR = "application/vnd.crosstreelabs.cached";
+
+        public String name;
+
+        public CachedVO() {}
+        public CachedVO(final String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.ValueObjectRegistry;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import static com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.Users.user;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.GsonJsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson1JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2NdJsonMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.ValidationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class ValueObjectCollectionProviderTest {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final MediaType USER1_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json;v=1");
+    protected static final MediaType USER_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+json");
+    protected static final MediaType USER1_XML_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+xml;v=1");
+    protected static final MediaType USER1_NDJSON_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+ndjson;v=1");
+    protected static final MediaType USER2_NDJSON_TYPE = MediaType.valueOf(UserV1.TYPE_STR+"+ndjson;v=2");
+    protected static final String USERS_JSON
+            = "[{\"name\":\"Thomas Wilson\",\"username\":\"first\"},{\"name\":\"Thomas Wilson\",\"username\":\"second\"}]";
+    protected static final String USERS_NDJSON
+            = "{\"name\":\"Thomas Wilson\",\"username\":\"first\"}\n{\"name\":\"Thomas Wilson\",\"username\":\"second\"}\n";
+    protected static final ValueObjectCollectionProvider UNDER_TEST
+            = new ValueObjectCollectionProvider(new Jackson2JsonMapper());
+    protected static final ValueObjectCollectionProvider NDJSON
+            = new ValueObjectCollectionProvider(new Jackson2NdJsonMapper());
+
+    @BeforeClass
+    public static void beforeClass() {
+        ValueObjectRegistry.clear();
+        ValueObjectRegistry.register(UserV1.class, UserV2.class);
+    }
+    @AfterClass
+    public static void afterClass() {
+        ValueObjectRegistry.clear();
+    }
+
+    @Test
+    public void ensureCanWriteCollectionsOfValueObjects() throws Exception {
+        assertThat(UNDER_TEST.isWriteable(ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(true));
+        assertThat(UNDER_TEST.isWriteable(Collection.class, type("collection"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(true));
+        assertThat(UNDER_TEST.isWriteable(Iterable.class, type("iterable"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(true));
+        assertThat(UNDER_TEST.isWriteable(Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(true));
+    }
+
+    @Test
+    public void ensureCannotWriteOtherTypes() throws Exception {
+        assertThat(UNDER_TEST.isWriteable(UserV1.class, UserV1.class, EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(false));
+        assertThat(UNDER_TEST.isWriteable(ArrayList.class, type("raw"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(false));
+        assertThat(UNDER_TEST.isWriteable(ArrayList.class, type("strings"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(false));
+    }
+
+    @Test
+    public void ensureCannotWriteIncompatibleMediaTypes() throws Exception {
+        assertThat(UNDER_TEST.isWriteable(ArrayList.class, type("list"), EMPTY_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE),
+                is(false));
+        assertThat(UNDER_TEST.isWriteable(ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_XML_TYPE),
+                is(false));
+        assertThat(UNDER_TEST.isWriteable(ArrayList.class, type("list"), EMPTY_ANNOTATIONS, MediaType.valueOf(UserV1.TYPE_STR+"+json;v=2")),
+                is(false));
+    }
+
+    @Test
+    public void ensureWritesArrayWithElementContentType() throws Exception {
+        List<UserV1> users = Arrays.asList(user("first"), user("second"));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        UNDER_TEST.writeTo(users, ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER_TYPE, headers, os);
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8),
+                is(equalTo(new String(new Jackson2JsonMapper().asBytes(users), StandardCharsets.UTF_8))));
+        assertThat(headers.getFirst("Content-Type"),
+                is(equalTo((Object)"application/vnd.crosstreelabs.user+json;v=1")));
+    }
+
+    @Test
+    public void ensureWritesIterator() throws Exception {
+        List<UserV1> users = Arrays.asList(user("first"), user("second"));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        UNDER_TEST.writeTo(users.iterator(), Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_TYPE, new MultivaluedHashMap<String, Object>(), os);
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8),
+                is(equalTo(new String(new Jackson2JsonMapper().asBytes(users), StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void ensureFlushesAtInterval() throws Exception {
+        List<UserV1> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(user("user"+i));
+        }
+        FlushCountingStream os = new FlushCountingStream();
+        new ValueObjectCollectionProvider(new Jackson2JsonMapper(), 2)
+                .writeTo(users, ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_TYPE, new MultivaluedHashMap<String, Object>(), os);
+        assertThat(os.flushes, is(3));
+
+        os = new FlushCountingStream();
+        new ValueObjectCollectionProvider(new Jackson2JsonMapper(), 0)
+                .writeTo(users, ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_TYPE, new MultivaluedHashMap<String, Object>(), os);
+        assertThat(os.flushes, is(1));
+    }
+
+    @Test
+    public void ensureFailedWriteLeavesArrayUnfinished() throws Exception {
+        for (Mapper mapper : new Mapper[]{
+            new Jackson2JsonMapper(), new Jackson1JsonMapper(), new GsonJsonMapper()
+        }) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try {
+                new ValueObjectCollectionProvider(mapper)
+                        .writeTo(failing(user("first")), Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_TYPE, new MultivaluedHashMap<String, Object>(), os);
+                fail("Test should have failed on the second element");
+            } catch (IllegalStateException ex) {}
+            String written = new String(os.toByteArray(), StandardCharsets.UTF_8);
+            assertThat(written.startsWith("["), is(true));
+            assertThat(written.endsWith("]"), is(false));
+        }
+    }
+
+    @Test
+    public void ensureFailedBufferedWriteWritesNothing() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            new ValueObjectCollectionProvider(mock(Mapper.class))
+                    .writeTo(failing(user("first")), Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_TYPE, new MultivaluedHashMap<String, Object>(), os);
+            fail("Test should have failed on the second element");
+        } catch (IllegalStateException ex) {}
+        assertThat(os.size(), is(0));
+    }
+
+    @Test
+    public void ensureWritesOneLinePerElementForNdjson() throws Exception {
+        List<UserV1> users = Arrays.asList(user("first"), user("second"));
+        assertThat(NDJSON.isWriteable(ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_NDJSON_TYPE),
+                is(true));
+        assertThat(NDJSON.isWriteable(ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(false));
+        assertThat(UNDER_TEST.isWriteable(ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_NDJSON_TYPE),
+                is(false));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        NDJSON.writeTo(users, ArrayList.class, type("list"), EMPTY_ANNOTATIONS, USER1_NDJSON_TYPE, headers, os);
+        Jackson2JsonMapper json = new Jackson2JsonMapper();
+        assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8),
+                is(equalTo(new String(json.asBytes(users.get(0)), StandardCharsets.UTF_8)+"\n"
+                        +new String(json.asBytes(users.get(1)), StandardCharsets.UTF_8)+"\n")));
+        assertThat(headers.getFirst("Content-Type"),
+                is(equalTo((Object)"application/vnd.crosstreelabs.user+ndjson;v=1")));
+    }
+
+    @Test
+    public void ensureCanReadIteratorsOfValueObjects() throws Exception {
+        assertThat(NDJSON.isReadable(Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_NDJSON_TYPE),
+                is(true));
+        assertThat(NDJSON.isReadable(Iterator.class, type("valueObjects"), EMPTY_ANNOTATIONS, USER2_NDJSON_TYPE),
+                is(true));
+        assertThat(NDJSON.isReadable(List.class, type("list"), EMPTY_ANNOTATIONS, USER1_NDJSON_TYPE),
+                is(false));
+        assertThat(NDJSON.isReadable(Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER2_NDJSON_TYPE),
+                is(false));
+        assertThat(NDJSON.isReadable(Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(false));
+        assertThat(new ValueObjectCollectionProvider(new Jackson1JsonMapper())
+                .isReadable(Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_TYPE),
+                is(false));
+    }
+
+    @Test
+    public void ensureReadsNdjsonLazily() throws Exception {
+        Iterator<?> it = (Iterator<?>)NDJSON.readFrom((Class)Iterator.class, type("valueObjects"), EMPTY_ANNOTATIONS, USER1_NDJSON_TYPE,
+                new MultivaluedHashMap<String, String>(), body(USERS_NDJSON+"not json"));
+        assertThat(it.hasNext(), is(true));
+        Object first = it.next();
+        assertThat(first, is(instanceOf(UserV1.class)));
+        assertThat(((UserV1)first).username, is(equalTo("first")));
+        assertThat(((UserV1)it.next()).username, is(equalTo("second")));
+        try {
+            it.hasNext();
+            fail("Test should have failed on the malformed third line");
+        } catch (RuntimeException ex) {}
+    }
+
+    @Test
+    public void ensureValidatesEachElementAsItIsRead() throws Exception {
+        Valid valid = mock(Valid.class);
+        doReturn(Valid.class).when(valid).annotationType();
+        String body = "[{\"name\":\"Thomas Wilson\",\"username\":\"first\",\"email\":\"first@crosstreelabs.com\"},"
+                + "{\"name\":\"Thomas Wilson\",\"username\":\"second\"}]";
+        Iterator<?> it = (Iterator<?>)UNDER_TEST.readFrom((Class)Iterator.class, type("iterator"), new Annotation[]{valid}, USER1_TYPE,
+                new MultivaluedHashMap<String, String>(), body(body));
+        assertThat(((UserV1)it.next()).username, is(equalTo("first")));
+        try {
+            it.next();
+            fail("Test should have failed on the invalid second element");
+        } catch (ValidationException ex) {}
+    }
+
+    @Test
+    public void ensureReadsArrays() throws Exception {
+        for (ValueObjectCollectionProvider provider : new ValueObjectCollectionProvider[]{
+            UNDER_TEST, new ValueObjectCollectionProvider(new GsonJsonMapper())
+        }) {
+            Iterator<?> it = (Iterator<?>)provider.readFrom((Class)Iterator.class, type("iterator"), EMPTY_ANNOTATIONS, USER1_TYPE,
+                    new MultivaluedHashMap<String, String>(), body(USERS_JSON));
+            assertThat(((UserV1)it.next()).username, is(equalTo("first")));
+            assertThat(((UserV1)it.next()).username, is(equalTo("second")));
+            assertThat(it.hasNext(), is(false));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ensureFlushIntervalMustNotBeNegative() {
+        new ValueObjectCollectionProvider(new Jackson2JsonMapper(), -1);
+    }
+
+    private static Type type(final String name) throws NoSuchFieldException {
+        return Fields.class.getDeclaredField(name).getGenericType();
+    }
+    private static Iterator<UserV1> failing(final UserV1 first) {
+        return new Iterator<UserV1>() {
+            private boolean returned;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+            @Override
+            public UserV1 next() {
+                if (returned) {
+                    throw new IllegalStateException("Source failed");
+                }
+                returned = true;
+                return first;
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+    private static ByteArrayInputStream body(final String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+    protected static class Fields {
+        List<UserV1> list;
+        Collection<? extends UserV1> collection;
+        Iterable<UserV1> iterable;
+        Iterator<UserV1> iterator;
+        Iterator<ValueObject> valueObjects;
+        List raw;
+        List<String> strings;
+    }
+    protected static class FlushCountingStream extends ByteArrayOutputStream {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
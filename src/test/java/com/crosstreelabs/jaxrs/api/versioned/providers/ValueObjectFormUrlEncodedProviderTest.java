@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.providers;
+
+import com.crosstreelabs.jaxrs.api.versioned.ValueObject;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.MediaType;
+import org.glassfish.jersey.internal.util.collection.MultivaluedStringMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ValueObjectFormUrlEncodedProviderTest {
+    protected static final Annotation[] EMPTY_ANNOTATIONS = new Annotation[0];
+    protected static final String ORDER_FORM = "name=Ann+B%C3%BCrgi&quantity=+3+&count=7"
+            + "&address[city]=Z%C3%BCrich&address.zip=8000&status=OPEN"
+            + "&meta[a][0]=1&meta[a][]=2&meta[b]=3&unknown[x]=y";
+
+    @Test
+    public void testBindsWithoutMapper() throws Exception {
+        OrderVO order = read(new ValueObjectFormUrlEncodedProvider(), OrderVO.class, ORDER_FORM);
+        assertThat(order.name, is(equalTo("Ann Bürgi")));
+        assertThat(order.quantity, is(3));
+        assertThat(order.getCount(), is(7));
+        assertThat(order.address.city, is(equalTo("Zürich")));
+        assertThat(order.address.zip, is(equalTo("8000")));
+        assertThat(order.status, is(Status.OPEN));
+        assertThat(order.meta, is(equalTo(
+                QueryStringUtils.toMap("a[0]=1&a[]=2&b=3"))));
+    }
+
+    @Test
+    public void testBindsLikeTheMapper() throws Exception {
+        Jackson2JsonMapper mapper = new Jackson2JsonMapper();
+        OrderVO expected = mapper.convertValue(QueryStringUtils.toMap(
+                new ByteArrayInputStream(ORDER_FORM.getBytes(StandardCharsets.UTF_8)), true), OrderVO.class);
+        OrderVO order = read(new ValueObjectFormUrlEncodedProvider(mapper), OrderVO.class, ORDER_FORM);
+        assertThat(order.name, is(equalTo(expected.name)));
+        assertThat(order.quantity, is(expected.quantity));
+        assertThat(order.getCount(), is(expected.getCount()));
+        assertThat(order.address.city, is(equalTo(expected.address.city)));
+        assertThat(order.status, is(expected.status));
+        assertThat(order.meta, is(equalTo(expected.meta)));
+    }
+
+    @Test
+    public void testBindsRecursiveTypes() throws Exception {
+        LinkVO link = read(new ValueObjectFormUrlEncodedProvider(), LinkVO.class, "value=a&next[next][value]=c");
+        assertThat(link.value, is(equalTo("a")));
+        assertThat(link.next.value, is(nullValue()));
+        assertThat(link.next.next.value, is(equalTo("c")));
+    }
+
+    @Test
+    public void testBindsPrivateFieldsWithoutAccessors() throws Exception {
+        assertThat(FormBinding.of(AccountVO.class).isBindable(), is(true));
+        AccountVO account = read(new ValueObjectFormUrlEncodedProvider(), AccountVO.class,
+                "owner=Thomas&balance=12.50&address[city]=Bern&id=7");
+        assertThat(account.owner, is(equalTo("Thomas")));
+        assertThat(account.balance, is(equalTo(new BigDecimal("12.50"))));
+        assertThat(account.address.city, is(equalTo("Bern")));
+        assertThat(((BaseVO)account).id, is(7L));
+    }
+
+    @Test
+    public void testRejectsCyclesThroughUnbindableTypes() throws Exception {
+        assertThat(FormBinding.of(ParentVO.class).isBindable(), is(false));
+        assertThat(FormBinding.of(ChildVO.class).isBindable(), is(false));
+        ParentVO parent = read(new ValueObjectFormUrlEncodedProvider(new Jackson2JsonMapper()),
+                ParentVO.class, "name=Ann&child[name]=Ben");
+        assertThat(parent.name, is(equalTo("Ann")));
+        assertThat(parent.child.name, is(equalTo("Ben")));
+    }
+
+    @Test
+    public void testQueryParametersReplaceBodyParameters() throws Exception {
+        ValueObjectFormUrlEncodedProvider provider = new ValueObjectFormUrlEncodedProvider();
+        Map<String, String[]> query = new HashMap<>();
+        query.put("address[zip]", new String[]{"9000"});
+        query.put("name", new String[]{"Query"});
+        setQueryString(provider, query);
+        OrderVO order = read(provider, OrderVO.class, ORDER_FORM);
+        assertThat(order.name, is(equalTo("Query")));
+        assertThat(order.address.city, is(nullValue()));
+        assertThat(order.address.zip, is(equalTo("9000")));
+        assertThat(order.quantity, is(3));
+    }
+
+    @Test
+    public void testHonoursConsumer() throws Exception {
+        UserV2 user = read(new ValueObjectFormUrlEncodedProvider(), UserV2.class,
+                "name=Thomas&username=thomas.wilson&email=thomas%40example.com&age=30");
+        assertThat(user.getName(), is(equalTo("Thomas")));
+        assertThat(user.getEmail(), is(equalTo("thomas@example.com")));
+        assertThat(user.getAge(), is(30));
+    }
+
+    @Test
+    public void testFallsBackToMapperForAnnotatedTypes() throws Exception {
+        assertThat(FormBinding.of(AnnotatedVO.class).isBindable(), is(false));
+        AnnotatedVO vo = read(new ValueObjectFormUrlEncodedProvider(new Jackson2JsonMapper()),
+                AnnotatedVO.class, "full_name=Thomas");
+        assertThat(vo.name, is(equalTo("Thomas")));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void ensureInvalidValuesAreRejected() throws Exception {
+        read(new ValueObjectFormUrlEncodedProvider(), OrderVO.class, "quantity=three");
+    }
+
+    protected static <T extends ValueObject> T read(
+            final ValueObjectFormUrlEncodedProvider provider,
+            final Class<T> type, final String form) throws Exception {
+        InputStream is = new ByteArrayInputStream(form.getBytes(StandardCharsets.UTF_8));
+        return type.cast(provider.readFrom((Class)type, type, EMPTY_ANNOTATIONS,
+                MediaType.APPLICATION_FORM_URLENCODED_TYPE, new MultivaluedStringMap(), is));
+    }
+    protected static void setQueryString(final ValueObjectFormUrlEncodedProvider provider,
+            final Map<String, String[]> map) throws Exception {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getParameterMap()).thenReturn(map);
+        Field f = ValueObjectFormUrlEncodedProvider.class.getDeclaredField("request");
+        f.setAccessible(true);
+        f.set(provider, req);
+    }
+
+    public enum Status { OPEN, CLOSED }
+    public static class AddressVO {
+        public String city;
+        public String zip;
+    }
+    public static class OrderVO implements ValueObject {
+        public String name;
+        public int quantity;
+        private Integer count;
+        public AddressVO address;
+        public Status status;
+        public Map<String, Object> meta;
+
+        public Integer getCount() {
+            return count;
+        }
+    }
+    public static class LinkVO implements ValueObject {
+        public String value;
+        public LinkVO next;
+    }
+    public static class BaseVO implements ValueObject {
+        private long id;
+    }
+    public static class AccountVO extends BaseVO {
+        private String owner;
+        private BigDecimal balance;
+        private AddressVO address;
+        private transient String ignored;
+    }
+    public static class ParentVO implements ValueObject {
+        public String name;
+        public ChildVO child;
+    }
+    public static class ChildVO {
+        public String name;
+        public ParentVO parent;
+        public List<String> tags;
+    }
+    public static class AnnotatedVO implements ValueObject {
+        @JsonProperty("full_name")
+        public String name;
+    }
+}
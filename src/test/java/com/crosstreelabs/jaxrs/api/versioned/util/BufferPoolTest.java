@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+    @Test
+    public void testReleasedBuffersAreReused() {
+        byte[] bytes = BufferPool.bytes();
+        assertThat(bytes.length, is(greaterThanOrEqualTo(BufferPool.BUFFER_SIZE)));
+        BufferPool.release(bytes);
+        assertThat(BufferPool.bytes(), is(sameInstance(bytes)));
+
+        char[] chars = BufferPool.chars();
+        BufferPool.release(chars);
+        assertThat(BufferPool.chars(), is(sameInstance(chars)));
+    }
+
+    @Test
+    public void ensureBuffersInUseAreNotHandedOutTwice() {
+        byte[] first = BufferPool.bytes();
+        byte[] second = BufferPool.bytes();
+        assertThat(second, is(not(sameInstance(first))));
+        BufferPool.release(first);
+        BufferPool.release(second);
+    }
+
+    @Test
+    public void ensureOversizedBuffersAreNotRetained() {
+        byte[] small = BufferPool.bytes();
+        BufferPool.release(small);
+        BufferPool.release(new byte[BufferPool.MAX_RETAINED + 1]);
+        assertThat(BufferPool.bytes(), is(sameInstance(small)));
+    }
+
+    @Test
+    public void ensureThreadHoldsBuffersSoftly() throws Exception {
+        BufferPool.release(BufferPool.bytes());
+        Field field = BufferPool.class.getDeclaredField("SLOTS");
+        field.setAccessible(true);
+        ThreadLocal<?> slots = (ThreadLocal<?>)field.get(null);
+        // A subclass of ThreadLocal, or a value of a library type, would pin
+        // the library's class loader to the thread
+        assertThat(slots.getClass() == ThreadLocal.class, is(true));
+        assertThat(slots.get(), is(instanceOf(SoftReference.class)));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.AbstractVO;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class InstantiatorTest {
+    
+    @Test
+    public void testNewInstance() throws Exception {
+        Instantiator<UserV1> instantiator = Instantiator.of(UserV1.class);
+        assertThat(instantiator, is(sameInstance(Instantiator.of(UserV1.class))));
+        UserV1 first = instantiator.newInstance();
+        assertThat(first, is(instanceOf(UserV1.class)));
+        assertThat(instantiator.newInstance(), is(not(sameInstance(first))));
+    }
+    
+    @Test(expected = InstantiationException.class)
+    public void ensureAbstractClassesCannotBeInstantiated() throws Exception {
+        Instantiator.of(AbstractVO.class).newInstance();
+    }
+    
+    @Test(expected = InstantiationException.class)
+    public void ensureNoArgConstructorIsRequired() throws Exception {
+        Instantiator.of(NoDefault.class).newInstance();
+    }
+    
+    @Test(expected = IllegalAccessException.class)
+    public void ensurePrivateConstructorsAreNotAccessible() throws Exception {
+        Instantiator.of(Private.class).newInstance();
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void ensureConstructorExceptionsPropagate() throws Exception {
+        Instantiator.of(Throwing.class).newInstance();
+    }
+    
+    public static class NoDefault {
+        public NoDefault(final String value) {}
+    }
+    public static class Private {
+        private Private() {}
+    }
+    public static class Throwing {
+        public Throwing() {
+            throw new IllegalStateException();
+        }
+    }
+}
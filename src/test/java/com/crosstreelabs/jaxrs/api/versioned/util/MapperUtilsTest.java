@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import static com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.Users.user;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayStreamingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.ArrayWriter;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.Mapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.StreamingMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.GsonJsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson1JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2JsonMapper;
+import com.crosstreelabs.jaxrs.api.versioned.mapper.impl.Jackson2XmlMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MapperUtilsTest {
+    protected static final Mapper[] MAPPERS = new Mapper[]{
+        new GsonJsonMapper(),
+        new Jackson1JsonMapper(),
+        new Jackson2JsonMapper(),
+        new Jackson2XmlMapper()
+    };
+    protected static final Mapper[] JSON_MAPPERS = new Mapper[]{
+        new GsonJsonMapper(),
+        new Jackson1JsonMapper(),
+        new Jackson2JsonMapper()
+    };
+
+    @Test
+    public void testStreamingMatchesBuffered() throws IOException {
+        UserV1 user = new UserV1();
+        user.name = "Thomas Wilson";
+        user.username = "twilson";
+        user.email = "thomas.wilson@crosstreelabs.com";
+        for (Mapper mapper : MAPPERS) {
+            assertThat(mapper, is(instanceOf(StreamingMapper.class)));
+            CloseTrackingStream os = new CloseTrackingStream();
+            MapperUtils.writeTo(mapper, user, os);
+            assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8),
+                    is(equalTo(new String(mapper.asBytes(user), StandardCharsets.UTF_8))));
+            assertThat(os.closed, is(false));
+        }
+    }
+
+    @Test
+    public void testFallsBackToBytes() throws IOException {
+        byte[] bytes = "{}".getBytes(StandardCharsets.UTF_8);
+        Object obj = new Object();
+        Mapper mapper = mock(Mapper.class);
+        when(mapper.asBytes(obj)).thenReturn(bytes);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        MapperUtils.writeTo(mapper, obj, os);
+        assertThat(os.toByteArray(), is(equalTo(bytes)));
+    }
+
+    @Test
+    public void testArrayStreamingMatchesBuffered() throws IOException {
+        List<UserV1> users = Arrays.asList(user("first"), user("second"), user("third"));
+        for (Mapper mapper : JSON_MAPPERS) {
+            assertThat(mapper, is(instanceOf(ArrayStreamingMapper.class)));
+            CloseTrackingStream os = new CloseTrackingStream();
+            ArrayWriter writer = MapperUtils.openArray(mapper, os);
+            for (UserV1 user : users) {
+                writer.write(user);
+            }
+            writer.close();
+            assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8),
+                    is(equalTo(new String(mapper.asBytes(users), StandardCharsets.UTF_8))));
+            assertThat(os.closed, is(false));
+        }
+    }
+
+    @Test
+    public void testArrayStreamingWritesEmptyArray() throws IOException {
+        for (Mapper mapper : JSON_MAPPERS) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            MapperUtils.openArray(mapper, os).close();
+            assertThat(new String(os.toByteArray(), StandardCharsets.UTF_8), is(equalTo("[]")));
+        }
+    }
+
+    @Test
+    public void testArrayFallsBackToBytes() throws IOException {
+        byte[] bytes = "[{},{}]".getBytes(StandardCharsets.UTF_8);
+        Object first = new Object();
+        Object second = new Object();
+        Mapper mapper = mock(Mapper.class);
+        when(mapper.asBytes(Arrays.asList(first, second))).thenReturn(bytes);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ArrayWriter writer = MapperUtils.openArray(mapper, os);
+        writer.write(first);
+        writer.write(second);
+        writer.flush();
+        assertThat(os.size(), is(0));
+        writer.close();
+        assertThat(os.toByteArray(), is(equalTo(bytes)));
+    }
+
+    @Test
+    public void testArrayAbortLeavesArrayUnfinished() throws IOException {
+        for (Mapper mapper : JSON_MAPPERS) {
+            CloseTrackingStream os = new CloseTrackingStream();
+            ArrayWriter writer = MapperUtils.openArray(mapper, os);
+            writer.write(user("first"));
+            writer.abort();
+            String written = new String(os.toByteArray(), StandardCharsets.UTF_8);
+            assertThat(written.startsWith("["), is(true));
+            assertThat(written.endsWith("]"), is(false));
+            assertThat(os.closed, is(false));
+        }
+    }
+
+    @Test
+    public void testArrayFallbackAbortWritesNothing() throws IOException {
+        Mapper mapper = mock(Mapper.class);
+        CloseTrackingStream os = new CloseTrackingStream();
+        ArrayWriter writer = MapperUtils.openArray(mapper, os);
+        writer.write(new Object());
+        writer.abort();
+        assertThat(os.size(), is(0));
+        assertThat(os.closed, is(false));
+    }
+
+    protected static class CloseTrackingStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -24,7 +24,12 @@ import static org.hamcrest.Matchers.*;
 import static com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils.toMap;
 import static com.crosstreelabs.jaxrs.api.versioned.util.QueryStringUtils.keyToPath;
 import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import javax.ws.rs.core.MultivaluedMap;
 
 public class QueryStringUtilsTest {
     private static final Gson GSON = new Gson();
@@ -48,4 +53,45 @@ public class QueryStringUtilsTest {
                 is(GSON.fromJson("{\"a\":\"1\",\"b\":\"2\",\"c\":{\"0\":\"1\",\"a\":\"2\"}}", Map.class)));
     }
     
+    @Test
+    public void testToMapDecoding() throws Exception {
+        assertThat(toMap(body("a%5Bb%5D=x+y&c[%c5%92]=%c5%a0"), true),
+                is(GSON.fromJson("{\"a[b]\":\"x y\",\"c\":{\"\u0152\":\"\u0160\"}}", Map.class)));
+        assertThat(toMap(body("a%5Bb%5D=x+y"), false),
+                is(GSON.fromJson("{\"a%5Bb%5D\":\"x+y\"}", Map.class)));
+        assertThat(toMap(body("a[ b ]=1&&=2&c"), true),
+                is(GSON.fromJson("{\"a\":{\"b\":\"1\"},\"c\":\"\"}", Map.class)));
+    }
+    
+    @Test
+    public void testToMapLargeBody() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("a[b][").append(i).append("]=").append(i).append('&');
+        }
+        Map<String, Object> result = toMap(body(sb.toString()), true);
+        Map<String, Object> b = (Map)((Map)result.get("a")).get("b");
+        assertThat(b.size(), is(5000));
+        assertThat(b.get("4999"), is((Object)"4999"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void ensureMalformedEscapesAreRejected() throws Exception {
+        toMap(body("a=%c"), true);
+    }
+    
+    @Test
+    public void testToMultivaluedMap() throws Exception {
+        MultivaluedMap<String, String> result
+                = QueryStringUtils.toMultivaluedMap(body("a=1&a=2&b%5B%5D=x+y&c&d=e=f"), true);
+        assertThat(result.get("a"), is(Arrays.asList("1", "2")));
+        assertThat(result.getFirst("b[]"), is("x y"));
+        assertThat(result.getFirst("c"), is(""));
+        assertThat(result.getFirst("d"), is("e=f"));
+    }
+    
+    protected static InputStream body(final String str) {
+        return new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8));
+    }
+    
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.MultivaluedMap;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class RequestLimitsTest {
+    protected static final RequestLimits LIMITS = new RequestLimits(64, 3, 2, 8);
+
+    @Test
+    public void testWithinLimits() throws Exception {
+        MultivaluedMap<String, String> result = QueryStringUtils.toMultivaluedMap(
+                body("a[b]=12345678&c=1&d"), true, LIMITS);
+        assertThat(result.getFirst("a[b]"), is("12345678"));
+        assertThat(result.size(), is(3));
+    }
+
+    @Test
+    public void ensureBodySizeFailsFast() throws Exception {
+        RequestLimits limits = new RequestLimits(64, 3, 2, 8);
+        EndlessInputStream is = new EndlessInputStream();
+        try {
+            StreamUtils.toString(is, limits);
+            fail();
+        } catch (ClientErrorException ex) {
+            assertThat(ex, is(not(instanceOf(BadRequestException.class))));
+        }
+        assertThat(is.read, is(lessThanOrEqualTo(65L)));
+        assertThat(limits.getBodySizeBreaches(), is(1L));
+        assertThat(limits.getParameterCountBreaches(), is(0L));
+    }
+
+    @Test
+    public void ensureParameterCountIsLimited() throws Exception {
+        RequestLimits limits = new RequestLimits(64, 3, 2, 8);
+        try {
+            QueryStringUtils.toMap(body("a=1&b=2&c=3&d=4"), true, limits);
+            fail();
+        } catch (BadRequestException ex) {
+            assertThat(limits.getParameterCountBreaches(), is(1L));
+        }
+    }
+
+    @Test
+    public void ensureKeyDepthIsLimited() throws Exception {
+        RequestLimits limits = new RequestLimits(64, 3, 2, 8);
+        try {
+            QueryStringUtils.toMap(body("a[][][]=1"), true, limits);
+            fail();
+        } catch (BadRequestException ex) {
+            assertThat(limits.getKeyDepthBreaches(), is(1L));
+        }
+    }
+
+    @Test
+    public void ensureValueLengthIsLimited() throws Exception {
+        RequestLimits limits = new RequestLimits(64, 3, 2, 8);
+        try {
+            QueryStringUtils.toMap(body("a=123456789"), true, limits);
+            fail();
+        } catch (BadRequestException ex) {
+            assertThat(limits.getValueLengthBreaches(), is(1L));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ensureLimitsMustBePositive() {
+        new RequestLimits(64, 0, 2, 8);
+    }
+
+    protected static InputStream body(final String str) {
+        return new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A body that never ends, counting how much of it has been read.
+     */
+    protected static class EndlessInputStream extends InputStream {
+        long read;
+
+        @Override
+        public int read() {
+            read++;
+            return 'a';
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class TypeUtilsTest {
+    protected static final TypeUtils UTIL = new TypeUtils();
+
+    @Test
+    public void testParameterizedTypes() throws Exception {
+        assertThat(TypeUtils.elementType(field("list")), is(equalTo((Class)UserV1.class)));
+        assertThat(TypeUtils.elementType(field("collection")), is(equalTo((Class)UserV1.class)));
+        assertThat(TypeUtils.elementType(field("iterable")), is(equalTo((Class)UserV1.class)));
+        assertThat(TypeUtils.elementType(field("iterator")), is(equalTo((Class)UserV1.class)));
+    }
+
+    @Test
+    public void testBoundsAreUsedForWildcardsAndVariables() throws Exception {
+        assertThat(TypeUtils.elementType(field("wildcard")), is(equalTo((Class)UserV1.class)));
+        assertThat(TypeUtils.elementType(field("raw")), is(equalTo((Class)Object.class)));
+        assertThat(TypeUtils.elementType(Bounded.class.getDeclaredField("list").getGenericType()),
+                is(equalTo((Class)UserV1.class)));
+    }
+
+    @Test
+    public void testTypeArgumentsAreFollowedThroughSubclasses() throws Exception {
+        assertThat(TypeUtils.elementType(Users.class), is(equalTo((Class)UserV1.class)));
+        assertThat(TypeUtils.elementType(field("indirect")), is(equalTo((Class)UserV1.class)));
+        assertThat(TypeUtils.elementType(field("entries")), is(equalTo((Class)Map.Entry.class)));
+    }
+
+    @Test
+    public void testNonIterablesDoNotResolve() throws Exception {
+        assertThat(TypeUtils.elementType(String.class), is(nullValue()));
+        assertThat(TypeUtils.elementType(field("map")), is(nullValue()));
+        assertThat(TypeUtils.elementType(null), is(nullValue()));
+    }
+
+    private static Type field(final String name)
+            throws NoSuchFieldException {
+        return Fields.class.getDeclaredField(name).getGenericType();
+    }
+
+    protected static class Fields {
+        List<UserV1> list;
+        Collection<UserV1> collection;
+        Iterable<UserV1> iterable;
+        Iterator<UserV1> iterator;
+        List<? extends UserV1> wildcard;
+        List raw;
+        Wrapper<UserV1> indirect;
+        Iterable<Map.Entry<String, UserV1>> entries;
+        Map<String, UserV1> map;
+    }
+    protected static class Bounded<T extends UserV1> {
+        List<T> list;
+    }
+    protected static class Users extends ArrayList<UserV1> {}
+    protected static class Wrapper<T> extends ArrayList<T> {}
+}
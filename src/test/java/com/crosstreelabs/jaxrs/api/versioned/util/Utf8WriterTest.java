@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class Utf8WriterTest {
+    protected static final String TEXT = "aéŒ€😀z";
+
+    @Test
+    public void testEncodesLikeOutputStreamWriter() throws Exception {
+        assertThat(encode(TEXT), is(equalTo(reference(TEXT))));
+        // Unpaired surrogates, including one left pending at the end
+        String broken = "a\ude00b\ud83dc\ud83d";
+        assertThat(encode(broken), is(equalTo(reference(broken))));
+    }
+
+    @Test
+    public void testWritesBeyondTheBuffer() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < BufferPool.BUFFER_SIZE * 3) {
+            sb.append(TEXT);
+        }
+        assertThat(encode(sb.toString()), is(equalTo(reference(sb.toString()))));
+    }
+
+    @Test
+    public void ensureCloseLeavesStreamOpen() throws Exception {
+        final boolean[] closed = new boolean[1];
+        ByteArrayOutputStream os = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+            }
+        };
+        Utf8Writer writer = new Utf8Writer(os);
+        writer.write("abc");
+        writer.close();
+        writer.close();
+        assertThat(os.toString("UTF-8"), is(equalTo("abc")));
+        assertThat(closed[0], is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void ensureClosedWriterRejectsWrites() throws Exception {
+        Utf8Writer writer = new Utf8Writer(new ByteArrayOutputStream());
+        writer.close();
+        writer.write("abc");
+    }
+
+    protected static byte[] encode(final String str) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Utf8Writer writer = new Utf8Writer(os);
+        writer.write(str);
+        writer.close();
+        return os.toByteArray();
+    }
+    protected static byte[] reference(final String str) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+        writer.write(str);
+        writer.close();
+        return os.toByteArray();
+    }
+}
@@ -14,16 +14,59 @@
 package com.crosstreelabs.jaxrs.api.versioned.util;
 
 import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
+import javax.validation.Validator;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.After;
 import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class ValidationUtilsTest {
     
     protected static final ValidationUtils UTIL = new ValidationUtils();
     
+    @After
+    public void after() {
+        ValidationUtils.setValidator(null);
+    }
+    
     @Test(expected = ValidationException.class)
     public void testValidate() {
         ValidationUtils.validate(new UserV1());
     }
     
+    @Test
+    public void testValidateReportsAllViolations() {
+        UserV1 user = new UserV1();
+        user.name = "Test User";
+        try {
+            ValidationUtils.validate(user);
+            fail("Expected the user to be invalid");
+        } catch (ConstraintViolationException ex) {
+            assertThat(ex.getConstraintViolations().size(), is(2));
+            assertThat(ex.getMessage(), is(equalTo("email may not be null, username may not be null")));
+        }
+    }
+    
+    @Test
+    public void testValidatorIsBootstrappedOnce() {
+        assertThat(ValidationUtils.getValidator(), is(sameInstance(ValidationUtils.getValidator())));
+    }
+    
+    @Test
+    public void testSetValidator() {
+        Validator validator = mock(Validator.class);
+        ValidationUtils.setValidator(validator);
+        assertThat(ValidationUtils.getValidator(), is(sameInstance(validator)));
+        UserV1 user = new UserV1();
+        ValidationUtils.validate(user);
+        verify(validator).validate(user);
+    }
+    
 }
\ No newline at end of file
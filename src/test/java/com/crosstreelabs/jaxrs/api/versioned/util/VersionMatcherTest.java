@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.crosstreelabs.jaxrs.api.versioned.util;
+
+import com.crosstreelabs.jaxrs.api.versioned.annotation.Version;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.AbstractVO;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV1;
+import com.crosstreelabs.jaxrs.api.versioned.fixtures.vo.UserV2;
+import javax.ws.rs.core.MediaType;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class VersionMatcherTest {
+    protected static final VersionMatcher MATCHER = new VersionMatcher(1,
+            new String[]{"application/vnd.crosstreelabs.user"});
+
+    @Test
+    public void testMatches() {
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.user")), is(true));
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.user;v=1")), is(true));
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.user+json;v=1;q=1000")), is(true));
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.user+xml;v=1")), is(true));
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.user;v=2")), is(false));
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.user+json;v=2")), is(false));
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.book")), is(false));
+        assertThat(MATCHER.matches(t("application/vnd.crosstreelabs.users")), is(false));
+    }
+
+    @Test
+    public void testMatchesIgnoringCase() {
+        assertThat(MATCHER.matches(t("Application/VND.Crosstreelabs.User+json")), is(true));
+        VersionMatcher upper = new VersionMatcher(1, new String[]{"APPLICATION/VND.CROSSTREELABS.USER"});
+        assertThat(upper.matches(t("application/vnd.crosstreelabs.user+json")), is(true));
+    }
+
+    @Test
+    public void testMatchesWildcards() {
+        assertThat(MATCHER.matches(t("*/*")), is(true));
+        assertThat(MATCHER.matches(t("application/*")), is(true));
+        assertThat(MATCHER.matches(t("application/*;v=2")), is(false));
+        assertThat(MATCHER.matches(t("text/*")), is(false));
+        VersionMatcher wildcard = new VersionMatcher(1, new String[]{"application/*"});
+        assertThat(wildcard.matches(t("application/vnd.crosstreelabs.book+json")), is(true));
+        assertThat(wildcard.matches(t("text/plain")), is(false));
+    }
+
+    @Test
+    public void testOf() {
+        assertThat(VersionMatcher.of(UserV1.class).getVersion(), is(1));
+        assertThat(VersionMatcher.of(UserV2.class).getVersion(), is(2));
+        assertThat(VersionMatcher.of(UserV1.class), is(sameInstance(VersionMatcher.of(UserV1.class))));
+        assertThat(VersionMatcher.of(AbstractVO.class), is(nullValue()));
+        assertThat(VersionMatcher.of(String.class), is(nullValue()));
+        Version version = UserV1.class.getAnnotation(Version.class);
+        assertThat(VersionMatcher.of(version).getVersion(), is(1));
+        assertThat(VersionMatcher.of(version), is(sameInstance(VersionMatcher.of(version))));
+    }
+
+    protected MediaType t(final String type) {
+        return MediaType.valueOf(type);
+    }
+}